@@ -0,0 +1,78 @@
+package games.blockchainparty.config;
+
+import com.bloxbean.cardano.client.backend.api.BackendService;
+import com.bloxbean.cardano.client.backend.api.helper.UtxoSelectionStrategy;
+import com.bloxbean.cardano.client.backend.factory.BackendFactory;
+import com.bloxbean.cardano.client.backend.impl.blockfrost.common.Constants;
+import games.blockchainparty.services.ProtocolParamsProvider;
+import games.blockchainparty.services.UtxoIndex;
+import games.blockchainparty.services.backend.GatewayBackendService;
+import games.blockchainparty.services.backend.HedgedBackendService;
+import games.blockchainparty.services.backend.SimulatedBackendService;
+import games.blockchainparty.services.backend.SimulatedChain;
+import games.blockchainparty.services.metrics.MeteredBackendService;
+import games.blockchainparty.services.selection.CoinSelectionMode;
+import games.blockchainparty.services.selection.CoinSelectionStrategyImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Configuration
+public class BackendConfig {
+
+    @Bean
+    public BackendService backendService(ConfigProperties configProperties, SimulatorProperties simulatorProperties, MeterRegistry meterRegistry,
+                                         @Value("${cardano.backend:blockfrost}") String backend,
+                                         @Value("${cardano.gateway.rate-limit-rps:10}") double rateLimitRps,
+                                         @Value("${cardano.gateway.rate-limit-burst:500}") int rateLimitBurst,
+                                         @Value("${cardano.gateway.max-wait-ms:5000}") long maxWaitMillis,
+                                         @Value("${cardano.gateway.cache-ttl-ms:1000}") long cacheTtlMillis,
+                                         @Value("${cardano.hedge.percentile:95}") double hedgePercentile,
+                                         @Value("${cardano.hedge.min-delay-ms:20}") long minHedgeDelayMillis,
+                                         @Value("${cardano.hedge.initial-delay-ms:500}") long initialHedgeDelayMillis) {
+        List<ConfigProperties.Provider> providers = configProperties.getProviders();
+        if (providers.isEmpty()) {
+            ConfigProperties.Provider provider = new ConfigProperties.Provider();
+            provider.setName("blockfrost");
+            provider.setApiKey(configProperties.getBlockfrostApiKey());
+            providers = List.of(provider);
+        }
+        SimulatedChain chain = null;
+        if ("simulator".equals(backend)) {
+            log.warn("Using the in-process Blockfrost simulator, transactions are not sent to any network");
+            chain = new SimulatedChain(simulatorProperties);
+        }
+
+        Map<String, BackendService> backends = new LinkedHashMap<>();
+        for (ConfigProperties.Provider provider : providers) {
+            String name = provider.getName() != null ? provider.getName() : "provider-" + (backends.size() + 1);
+            BackendService backendService;
+            if (chain != null) {
+                backendService = new SimulatedBackendService(simulatorProperties, chain);
+            } else {
+                String url = provider.getUrl() != null && !provider.getUrl().isBlank() ? provider.getUrl()
+                        : configProperties.getNetwork() == Network.TEST_NET ? Constants.BLOCKFROST_TESTNET_URL : Constants.BLOCKFROST_MAINNET_URL;
+                backendService = BackendFactory.getBlockfrostBackendService(url, provider.getApiKey());
+            }
+            backends.put(name, new GatewayBackendService(new MeteredBackendService(backendService, name, meterRegistry), name,
+                    rateLimitRps, rateLimitBurst, maxWaitMillis, cacheTtlMillis, meterRegistry));
+        }
+        if (backends.size() == 1)
+            return backends.values().iterator().next();
+        return new HedgedBackendService(backends, hedgePercentile, minHedgeDelayMillis, initialHedgeDelayMillis, meterRegistry);
+    }
+
+    @Bean
+    public UtxoSelectionStrategy utxoSelectionStrategy(UtxoIndex utxoIndex, ProtocolParamsProvider protocolParamsProvider,
+                                                       @Value("${cardano.coin-selection:LARGEST_FIRST}") CoinSelectionMode coinSelectionMode,
+                                                       @Value("${cardano.coin-selection-max-inputs:50}") int maxInputs, MeterRegistry meterRegistry) {
+        return new CoinSelectionStrategyImpl(utxoIndex, protocolParamsProvider::getMinAdaCalculator, coinSelectionMode, maxInputs, meterRegistry);
+    }
+}
@@ -0,0 +1,33 @@
+package games.blockchainparty.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cardano")
+public class ConfigProperties {
+
+    private Network network;
+    private String blockfrostApiKey;
+    private String assetNamePrefix;
+    /**
+     * Backend providers to spread and hedge calls over, a single Blockfrost provider with blockfrostApiKey when empty.
+     */
+    private List<Provider> providers = new ArrayList<>();
+
+    @Data
+    public static class Provider {
+
+        private String name;
+        /**
+         * Blockfrost-compatible API base url, the public Blockfrost endpoint of the network when empty.
+         */
+        private String url;
+        private String apiKey;
+    }
+}
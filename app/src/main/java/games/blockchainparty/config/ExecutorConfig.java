@@ -0,0 +1,41 @@
+package games.blockchainparty.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Executor for the blocking Blockfrost work behind the async endpoints.
+     * Uses virtual threads when the JDK has them, otherwise a dedicated I/O pool of cardano.io-threads threads.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService minterExecutor(@Value("${cardano.io-threads:256}") int ioThreads) {
+        try {
+            ExecutorService executorService = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            log.info("Minter executor: virtual threads");
+            return executorService;
+        } catch (ReflectiveOperationException e) {
+            log.info("Minter executor: " + ioThreads + " I/O threads");
+            AtomicInteger counter = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(ioThreads, ioThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "minter-io-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package games.blockchainparty.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings of the in-process Blockfrost simulator, used when cardano.backend=simulator.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cardano.simulator")
+public class SimulatorProperties {
+
+    private int utxosPerAddress = 200;
+    private double dustRatio = 0.70;
+    private double midRatio = 0.25;
+    private double tokenRatio = 0.10;
+    private int tokensPerUtxo = 3;
+    private long seed = 42;
+    private long latencyMs = 80;
+    private long latencyJitterMs = 40;
+    private double errorRate = 0;
+    private double rateLimitRps = 10;
+    private int rateLimitBurst = 500;
+    private long confirmDelayMs = 20_000;
+}
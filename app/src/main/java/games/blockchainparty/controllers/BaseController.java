@@ -0,0 +1,216 @@
+package games.blockchainparty.controllers;
+
+import com.bloxbean.cardano.client.backend.exception.ApiException;
+import com.bloxbean.cardano.client.util.HexUtil;
+import games.blockchainparty.controllers.model.BatchMintRequest;
+import games.blockchainparty.controllers.model.MintedRangeResponse;
+import games.blockchainparty.controllers.model.SubmitRequest;
+import games.blockchainparty.controllers.model.SubmitResponse;
+import games.blockchainparty.services.MintedRegistry;
+import games.blockchainparty.services.MinterService;
+import games.blockchainparty.services.ReservationManager;
+import games.blockchainparty.services.SubmissionService;
+import games.blockchainparty.services.exception.RejectedTransactionException;
+import games.blockchainparty.services.exception.TransactionTooLargeException;
+import games.blockchainparty.services.model.SignedTransaction;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@Slf4j
+@RestController
+public class BaseController {
+
+    private static final int MAX_MINTED_RANGE = 1 << 20;
+
+    private final MinterService minterService;
+    private final MintedRegistry mintedRegistry;
+    private final ReservationManager reservationManager;
+    private final SubmissionService submissionService;
+    private final MeterRegistry meterRegistry;
+    private final int maxBatchSize;
+
+    @Autowired
+    public BaseController(MinterService minterService, MintedRegistry mintedRegistry, ReservationManager reservationManager, SubmissionService submissionService, MeterRegistry meterRegistry,
+                          @Value("${cardano.max-batch-size:50}") int maxBatchSize) {
+        this.minterService = minterService;
+        this.mintedRegistry = mintedRegistry;
+        this.reservationManager = reservationManager;
+        this.submissionService = submissionService;
+        this.meterRegistry = meterRegistry;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @GetMapping("/alreadyminted/{number}")
+    @ResponseBody
+    public ResponseEntity<Boolean> alreadyMinted(@PathVariable Integer number) {
+        if (mintedRegistry.isMinted(number)) {
+            return ResponseEntity.ok(true);
+        } else {
+            return ResponseEntity.ok(false);
+        }
+    }
+
+    /**
+     * Minted status of a whole range in one poll. The ETag is the range version, so an unchanged range costs a 304 without reading its bits.
+     * It is weak, Tomcat only gzips responses without a strong ETag.
+     */
+    @GetMapping("/alreadyminted")
+    @ResponseBody
+    public ResponseEntity<MintedRangeResponse> alreadyMinted(@RequestParam int from, @RequestParam int count, WebRequest webRequest) {
+        if (from < 0 || count <= 0 || count > MAX_MINTED_RANGE || from > Integer.MAX_VALUE - count) {
+            return ResponseEntity.badRequest().build();
+        }
+        String eTag = "W/\"" + mintedRegistry.getGeneration() + "-" + Long.toHexString(mintedRegistry.rangeVersion(from, count)) + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(MintedRangeResponse.of(from, count, mintedRegistry.mintedRange(from, count)));
+    }
+
+    @GetMapping("/mintingtx/{userAddr}/{number}")
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<String>> mintingTx(@PathVariable String userAddr, @PathVariable Integer number) {
+        if (!isMintable(number)) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return buildMintingTx(userAddr, Collections.singletonList(number));
+    }
+
+    @PostMapping("/mintingtx/batch")
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<String>> batchMintingTx(@RequestBody BatchMintRequest batchMintRequest) {
+        List<Integer> numbers = batchMintRequest.getNumbers();
+        if (batchMintRequest.getAddress() == null || numbers == null || numbers.isEmpty() || numbers.size() > maxBatchSize
+                || !numbers.stream().allMatch(BaseController::isMintable) || new HashSet<>(numbers).size() != numbers.size()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return buildMintingTx(batchMintRequest.getAddress(), numbers);
+    }
+
+    @PostMapping("/submit")
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<SubmitResponse>> mintingTx(@RequestBody SubmitRequest submitRequest) {
+        List<Integer> numbers = submitRequest.getAllNumbers();
+        if (numbers.isEmpty() || numbers.size() > maxBatchSize || !numbers.stream().allMatch(BaseController::isMintable)) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        if (numbers.stream().anyMatch(mintedRegistry::isMinted)) {
+            count("submit", "already_minted");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT).build());
+        }
+        //Numbers and submitter are taken from the build the transaction body belongs to, the request only has to agree with them.
+        return minterService.signTransactionAsync(submitRequest)
+                .thenApply(transaction -> {
+                    List<Integer> builtNumbers = transaction.getNumbers();
+                    if (!new HashSet<>(builtNumbers).equals(new HashSet<>(numbers))) {
+                        count("submit", "mismatch");
+                        return ResponseEntity.badRequest().<SubmitResponse>build();
+                    }
+                    if (!beginSubmit(builtNumbers, transaction.getChangeAddress())) {
+                        count("submit", "not_reserved");
+                        return ResponseEntity.status(HttpStatus.CONFLICT).<SubmitResponse>build();
+                    }
+                    try {
+                        String trackingId = submissionService.enqueue(builtNumbers, transaction);
+                        count("submit", "accepted");
+                        return ResponseEntity.accepted().body(SubmitResponse.of(submissionService.get(trackingId).orElseThrow()));
+                    } catch (RuntimeException e) {
+                        reservationManager.abortSubmit(builtNumbers, transaction.getChangeAddress());
+                        throw e;
+                    }
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof RejectedTransactionException) {
+                        log.warn("Rejected submit: " + cause.getMessage());
+                        count("submit", "rejected");
+                        return ResponseEntity.badRequest().build();
+                    }
+                    log.error(cause.getMessage(), cause);
+                    count("submit", "error");
+                    return ResponseEntity.internalServerError().build();
+                });
+    }
+
+    @GetMapping("/submit/{trackingId}")
+    @ResponseBody
+    public ResponseEntity<SubmitResponse> submission(@PathVariable String trackingId) {
+        return submissionService.get(trackingId)
+                .map(submission -> ResponseEntity.ok(SubmitResponse.of(submission)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private CompletableFuture<ResponseEntity<String>> buildMintingTx(String userAddr, List<Integer> numbers) {
+        if (numbers.stream().anyMatch(mintedRegistry::isMinted)) {
+            count("build", "already_minted");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT).build());
+        }
+        List<ReservationManager.Reservation> reserved;
+        try {
+            Optional<List<ReservationManager.Reservation>> reservation = reservationManager.reserve(numbers, userAddr);
+            if (reservation.isEmpty()) {
+                count("build", "reserved");
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT).build());
+            }
+            reserved = reservation.get();
+        } catch (ApiException e) {
+            log.error(e.getMessage(), e);
+            count("build", "error");
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError().build());
+        }
+        return minterService.createTransactionAsync(userAddr, numbers)
+                .thenApply(transaction -> {
+                    submissionService.recordBuilt(userAddr, numbers, SignedTransaction.txId(HexUtil.decodeHexString(transaction)));
+                    count("build", "built");
+                    return ResponseEntity.ok(transaction);
+                })
+                .exceptionally(e -> {
+                    reservationManager.release(reserved);
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof TransactionTooLargeException) {
+                        log.warn(cause.getMessage());
+                        count("build", "too_large");
+                        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+                    }
+                    log.error(cause.getMessage(), cause);
+                    count("build", "error");
+                    return ResponseEntity.internalServerError().build();
+                });
+    }
+
+    private boolean beginSubmit(List<Integer> numbers, String userAddr) {
+        try {
+            return submissionService.beginSubmit(numbers, userAddr);
+        } catch (ApiException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static boolean isMintable(Integer number) {
+        return number != null && number >= 0;
+    }
+
+    /**
+     * Outcome of a build or submit request, distinguishing the reasons behind the same HTTP status.
+     */
+    private void count(String flow, String outcome) {
+        meterRegistry.counter("minter.requests", "flow", flow, "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,16 @@
+package games.blockchainparty.controllers.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchMintRequest {
+
+    @JsonProperty("address")
+    private String address;
+
+    @JsonProperty("numbers")
+    private List<Integer> numbers;
+}
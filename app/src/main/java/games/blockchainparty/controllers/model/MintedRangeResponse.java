@@ -0,0 +1,39 @@
+package games.blockchainparty.controllers.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.Base64;
+
+/**
+ * Minted status of count numbers starting at from. The bitmap is base64 of the packed bits,
+ * bit i (least significant first within each byte) set when number from + i is minted.
+ */
+@Data
+public class MintedRangeResponse {
+
+    @JsonProperty("from")
+    private int from;
+
+    @JsonProperty("count")
+    private int count;
+
+    @JsonProperty("minted")
+    private int minted;
+
+    @JsonProperty("bitmap")
+    private String bitmap;
+
+    public static MintedRangeResponse of(int from, int count, byte[] bits) {
+        MintedRangeResponse mintedRangeResponse = new MintedRangeResponse();
+        mintedRangeResponse.setFrom(from);
+        mintedRangeResponse.setCount(count);
+        int minted = 0;
+        for (byte b : bits) {
+            minted += Integer.bitCount(b & 0xFF);
+        }
+        mintedRangeResponse.setMinted(minted);
+        mintedRangeResponse.setBitmap(Base64.getEncoder().encodeToString(bits));
+        return mintedRangeResponse;
+    }
+}
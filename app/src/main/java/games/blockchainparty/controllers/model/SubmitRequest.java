@@ -0,0 +1,35 @@
+package games.blockchainparty.controllers.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.Collections;
+import java.util.List;
+
+@Data
+public class SubmitRequest {
+
+    @JsonProperty("number")
+    private Integer number;
+
+    @JsonProperty("numbers")
+    private List<Integer> numbers;
+
+    @JsonProperty("secret_key")
+    private String secretKey;
+
+    @JsonProperty("tx")
+    private String txHash;
+
+    /**
+     * Numbers minted by the transaction, either the batch list or the single number.
+     */
+    @JsonIgnore
+    public List<Integer> getAllNumbers() {
+        if (numbers != null && !numbers.isEmpty()) {
+            return numbers;
+        }
+        return number != null ? Collections.singletonList(number) : Collections.emptyList();
+    }
+}
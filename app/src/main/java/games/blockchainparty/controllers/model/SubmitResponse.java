@@ -0,0 +1,26 @@
+package games.blockchainparty.controllers.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import games.blockchainparty.services.model.Submission;
+import lombok.Data;
+
+@Data
+public class SubmitResponse {
+
+    @JsonProperty("tracking_id")
+    private String trackingId;
+
+    @JsonProperty("state")
+    private Submission.State state;
+
+    @JsonProperty("tx_id")
+    private String txId;
+
+    public static SubmitResponse of(Submission submission) {
+        SubmitResponse submitResponse = new SubmitResponse();
+        submitResponse.setTrackingId(submission.getTrackingId());
+        submitResponse.setState(submission.getState());
+        submitResponse.setTxId(submission.getTxId());
+        return submitResponse;
+    }
+}
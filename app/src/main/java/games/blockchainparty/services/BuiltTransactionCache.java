@@ -0,0 +1,194 @@
+package games.blockchainparty.services;
+
+import com.bloxbean.cardano.client.backend.exception.ApiException;
+import com.bloxbean.cardano.client.transaction.spec.TransactionInput;
+import com.bloxbean.cardano.client.util.HexUtil;
+import games.blockchainparty.services.cbor.CborReader;
+import games.blockchainparty.services.cbor.CborWriter;
+import games.blockchainparty.services.model.SignedTransaction;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+import static com.bloxbean.cardano.client.crypto.KeyGenUtil.blake2bHash256;
+
+/**
+ * Transactions built by this server, keyed by body hash until their TTL slot.
+ * A signed transaction coming back for a cached body only needs the server witnesses added, which is done on the raw CBOR.
+ * The entries are also what a submit is checked against: a body that is not here was not built by this server.
+ */
+@Service
+@Slf4j
+public class BuiltTransactionCache {
+
+    private static final int MAX_ENTRIES = 10_000;
+    private static final long VKEY_WITNESSES = 0;
+
+    private final SignerRegistry signerRegistry;
+    private final SlotClock slotClock;
+    private final Map<String, BuiltTransaction> entries = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BuiltTransaction> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    });
+
+    @Autowired
+    public BuiltTransactionCache(SignerRegistry signerRegistry, SlotClock slotClock) {
+        this.signerRegistry = signerRegistry;
+        this.slotClock = slotClock;
+    }
+
+    public void put(byte[] transactionBytes, List<Integer> numbers, String changeAddress, long ttl, List<TransactionInput> inputs) {
+        ParsedTransaction parsed = ParsedTransaction.parse(transactionBytes);
+        entries.put(HexUtil.encodeHexString(blake2bHash256(parsed.body)), new BuiltTransaction(parsed, numbers, changeAddress, ttl, inputs));
+    }
+
+    /**
+     * Re-register a build journaled before a restart. Only its body hash is known, so its transaction can only be signed in full.
+     */
+    public void restore(String txId, List<Integer> numbers, String changeAddress, long ttl) {
+        entries.putIfAbsent(txId, new BuiltTransaction(null, numbers, changeAddress, ttl, null));
+    }
+
+    /**
+     * The build a transaction belongs to, matched by body hash, or empty if it was not built here or has expired.
+     */
+    public Optional<BuiltTransaction> find(byte[] transactionBytes) {
+        try {
+            return Optional.ofNullable(entries.get(SignedTransaction.txId(transactionBytes)));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Add the server witnesses to a transaction of the build signed by the user, if the user only added vkey witnesses.
+     * @return the submittable transaction, or empty if the caller has to take the full deserialize / sign path
+     */
+    public Optional<SignedTransaction> complete(byte[] signedBytes, BuiltTransaction built) {
+        if (built.parsed == null)
+            return Optional.empty();
+        ParsedTransaction signed;
+        try {
+            signed = ParsedTransaction.parse(signedBytes);
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+        byte[] bodyHash = blake2bHash256(signed.body);
+        if (!Arrays.equals(built.parsed.body, signed.body) || !Arrays.equals(built.parsed.auxiliaryData, signed.auxiliaryData))
+            return Optional.empty();
+        if (!signed.witnesses.keySet().equals(built.parsed.witnesses.keySet()))
+            return Optional.empty();
+        for (Map.Entry<Long, byte[]> witness : built.parsed.witnesses.entrySet()) {
+            if (!Arrays.equals(witness.getValue(), signed.witnesses.get(witness.getKey())))
+                return Optional.empty(); //Scripts or other witnesses were changed
+        }
+
+        List<byte[]> vkeyWitnesses = new ArrayList<>(signed.vkeyWitnesses);
+        vkeyWitnesses.addAll(signerRegistry.vkeyWitnesses(bodyHash));
+        CborWriter out = new CborWriter(signedBytes.length + 256)
+                .writeHeader(CborReader.MAJOR_ARRAY, 4)
+                .writeRaw(signed.body)
+                .writeHeader(CborReader.MAJOR_MAP, 1 + signed.witnesses.size())
+                .writeHeader(CborReader.MAJOR_UNSIGNED, VKEY_WITNESSES)
+                .writeHeader(CborReader.MAJOR_ARRAY, vkeyWitnesses.size());
+        vkeyWitnesses.forEach(out::writeRaw);
+        signed.witnesses.forEach((key, value) -> out.writeHeader(CborReader.MAJOR_UNSIGNED, key).writeRaw(value));
+        out.writeTrue().writeRaw(signed.auxiliaryData);
+        return Optional.of(new SignedTransaction(out.toByteArray(), built.numbers, built.ttl, built.changeAddress, built.inputs));
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        if (!slotClock.isSynced())
+            return;
+        try {
+            long currentSlot = slotClock.getCurrentSlot();
+            synchronized (entries) {
+                entries.values().removeIf(built -> currentSlot > built.ttl);
+            }
+        } catch (ApiException e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * [body, witness set, is valid?, auxiliary data] split into raw items, the witness set into vkey witnesses and other entries.
+     */
+    private static final class ParsedTransaction {
+
+        private final byte[] body;
+        private final List<byte[]> vkeyWitnesses;
+        private final SortedMap<Long, byte[]> witnesses;
+        private final byte[] auxiliaryData;
+
+        private ParsedTransaction(byte[] body, List<byte[]> vkeyWitnesses, SortedMap<Long, byte[]> witnesses, byte[] auxiliaryData) {
+            this.body = body;
+            this.vkeyWitnesses = vkeyWitnesses;
+            this.witnesses = witnesses;
+            this.auxiliaryData = auxiliaryData;
+        }
+
+        private static ParsedTransaction parse(byte[] transactionBytes) {
+            CborReader reader = new CborReader(transactionBytes);
+            long items = reader.readHeader(CborReader.MAJOR_ARRAY);
+            if (items != 3 && items != 4)
+                throw new IllegalArgumentException("Not a transaction");
+            byte[] body = reader.readItem();
+
+            List<byte[]> vkeyWitnesses = new ArrayList<>();
+            SortedMap<Long, byte[]> witnesses = new TreeMap<>();
+            long entries = reader.readHeader(CborReader.MAJOR_MAP);
+            if (entries == CborReader.INDEFINITE)
+                throw new IllegalArgumentException("Indefinite witness set");
+            for (long i = 0; i < entries; i++) {
+                long key = reader.readHeader(CborReader.MAJOR_UNSIGNED);
+                if (key == VKEY_WITNESSES) {
+                    long count = reader.readHeader(CborReader.MAJOR_ARRAY);
+                    if (count == CborReader.INDEFINITE)
+                        throw new IllegalArgumentException("Indefinite vkey witnesses");
+                    for (long w = 0; w < count; w++) {
+                        vkeyWitnesses.add(reader.readItem());
+                    }
+                } else {
+                    witnesses.put(key, reader.readItem());
+                }
+            }
+            if (items == 4) {
+                reader.skip(); //is valid
+            }
+            byte[] auxiliaryData = reader.readItem();
+            if (reader.hasNext())
+                throw new IllegalArgumentException("Trailing bytes after transaction");
+            return new ParsedTransaction(body, vkeyWitnesses, witnesses, auxiliaryData);
+        }
+    }
+
+    /**
+     * Numbers and user a transaction was built for. Entries restored from the journal have no parsed transaction and no inputs.
+     */
+    @Getter
+    public static final class BuiltTransaction {
+
+        @Getter(AccessLevel.NONE)
+        private final ParsedTransaction parsed;
+        private final List<Integer> numbers;
+        private final String changeAddress;
+        private final long ttl;
+        private final List<TransactionInput> inputs;
+
+        private BuiltTransaction(ParsedTransaction parsed, List<Integer> numbers, String changeAddress, long ttl, List<TransactionInput> inputs) {
+            this.parsed = parsed;
+            this.numbers = List.copyOf(numbers);
+            this.changeAddress = changeAddress;
+            this.ttl = ttl;
+            this.inputs = inputs;
+        }
+    }
+}
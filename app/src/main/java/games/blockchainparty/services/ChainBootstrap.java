@@ -0,0 +1,117 @@
+package games.blockchainparty.services;
+
+import com.bloxbean.cardano.client.backend.exception.ApiException;
+import games.blockchainparty.services.model.ChainSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Confirms live chain data in the background: genesis with the slot anchor and the protocol params are fetched in parallel, retried with backoff,
+ * then saved as the bootstrap snapshot for the next start. Until then the slot clock and params serve what the snapshot had.
+ * Reported as the chainBootstrap health indicator, part of the readiness group.
+ */
+@Service
+@Slf4j
+public class ChainBootstrap implements HealthIndicator {
+
+    private static final long BASE_BACKOFF_MILLIS = 1_000;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final SlotClock slotClock;
+    private final ProtocolParamsProvider protocolParamsProvider;
+    private final SignerRegistry signerRegistry;
+    private final ChainSnapshotStore chainSnapshotStore;
+    private final ScheduledExecutorService executor;
+    private final long startedAt = System.currentTimeMillis();
+    private volatile boolean live;
+
+    @Autowired
+    public ChainBootstrap(SlotClock slotClock, ProtocolParamsProvider protocolParamsProvider, SignerRegistry signerRegistry, ChainSnapshotStore chainSnapshotStore) {
+        this.slotClock = slotClock;
+        this.protocolParamsProvider = protocolParamsProvider;
+        this.signerRegistry = signerRegistry;
+        this.chainSnapshotStore = chainSnapshotStore;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "chain-bootstrap-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletableFuture.allOf(retry("slot clock", slotClock::refresh), retry("protocol params", protocolParamsProvider::refresh))
+                .thenRun(() -> {
+                    live = true;
+                    log.info("Live chain data confirmed " + (System.currentTimeMillis() - startedAt) + "ms after startup");
+                    saveSnapshot();
+                });
+    }
+
+    public boolean isLive() {
+        return live;
+    }
+
+    @Override
+    public Health health() {
+        boolean serving = slotClock.isSynced() && protocolParamsProvider.getProtocolParams() != null;
+        Health.Builder builder = signerRegistry.isFailed() ? Health.down() : live && signerRegistry.isReady() ? Health.up() : Health.outOfService();
+        return builder
+                .withDetail("chainData", live ? "live" : serving ? "snapshot" : "none")
+                .withDetail("signerKeys", signerRegistry.isReady() ? "ready" : signerRegistry.isFailed() ? "failed" : "deriving")
+                .build();
+    }
+
+    /**
+     * Keep the snapshot close to the chain, so the next start has current params and a recent anchor.
+     */
+    @Scheduled(initialDelayString = "${cardano.snapshot-save-ms:600000}", fixedDelayString = "${cardano.snapshot-save-ms:600000}")
+    public void saveSnapshot() {
+        if (!live)
+            return;
+        ChainSnapshot snapshot = new ChainSnapshot();
+        slotClock.exportTo(snapshot);
+        protocolParamsProvider.exportTo(snapshot);
+        try {
+            chainSnapshotStore.save(snapshot);
+        } catch (IOException e) {
+            log.error("Chain snapshot not saved", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private CompletableFuture<Void> retry(String name, Refresh refresh) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        executor.execute(() -> attempt(name, refresh, done, 1));
+        return done;
+    }
+
+    private void attempt(String name, Refresh refresh, CompletableFuture<Void> done, int attempt) {
+        try {
+            refresh.run();
+            done.complete(null);
+        } catch (ApiException | RuntimeException e) {
+            long delay = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt - 1, 16));
+            log.warn("Live " + name + " not available yet (" + e.getMessage() + "), retry in " + delay + "ms");
+            executor.schedule(() -> attempt(name, refresh, done, attempt + 1), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private interface Refresh {
+
+        void run() throws ApiException;
+    }
+}
@@ -0,0 +1,66 @@
+package games.blockchainparty.services;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import games.blockchainparty.services.model.ChainSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * Bootstrap snapshot of genesis, protocol params and slot anchor under data/, loaded once at startup.
+ */
+@Service
+@Slf4j
+public class ChainSnapshotStore {
+
+    private static final String SNAPSHOT_FILE = "chain.snapshot";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final FilesService filesService;
+    private final ChainSnapshot loaded;
+
+    @Autowired
+    public ChainSnapshotStore(FilesService filesService) {
+        this.filesService = filesService;
+        this.loaded = load();
+    }
+
+    /**
+     * The snapshot found at startup, if any.
+     */
+    public Optional<ChainSnapshot> getLoaded() {
+        return Optional.ofNullable(loaded);
+    }
+
+    /**
+     * Replace the snapshot atomically, a crash mid-write leaves the previous one.
+     */
+    public void save(ChainSnapshot snapshot) throws IOException {
+        snapshot.setSavedAt(System.currentTimeMillis());
+        Path path = filesService.resolve(SNAPSHOT_FILE);
+        Path tmp = filesService.resolve(SNAPSHOT_FILE + ".tmp");
+        Files.write(tmp, objectMapper.writeValueAsBytes(snapshot));
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private ChainSnapshot load() {
+        Path path = filesService.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path))
+            return null;
+        try {
+            ChainSnapshot snapshot = objectMapper.readValue(path.toFile(), ChainSnapshot.class);
+            log.info("Chain snapshot loaded, saved " + (System.currentTimeMillis() - snapshot.getSavedAt()) / 1000 + "s ago");
+            return snapshot;
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable chain snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -10,6 +10,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import games.blockchainparty.config.ConfigProperties;
 import games.blockchainparty.config.Network;
 import games.blockchainparty.services.model.Policy;
+import games.blockchainparty.services.model.PolicyDescriptor;
 import lombok.Data;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -18,6 +19,8 @@ import org.springframework.security.crypto.encrypt.Encryptors;
 import org.springframework.security.crypto.encrypt.TextEncryptor;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 @Data
 @Slf4j
@@ -27,18 +30,34 @@ public class ConfigService {
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final ConfigProperties configProperties;
     private final FilesService filesService;
-    private Policy policy;
-    private Account account;
+    //Decrypted and derived in parallel in the background, getters wait for them.
+    private final CompletableFuture<Account> account;
+    private final CompletableFuture<Policy> policy;
+    private final CompletableFuture<PolicyDescriptor> policyDescriptor;
 
     @Autowired
     public ConfigService(ConfigProperties configProperties, FilesService filesService) {
         this.configProperties = configProperties;
         this.filesService = filesService;
-        loadAccount();
-        loadPolicy();
+        this.account = CompletableFuture.supplyAsync(this::loadAccount);
+        this.policy = CompletableFuture.supplyAsync(this::loadPolicy);
+        this.policyDescriptor = policy.thenApply(this::describePolicy);
+    }
+
+    public Account getAccount() {
+        return account.join();
+    }
+
+    public Policy getPolicy() {
+        return policy.join();
+    }
+
+    public PolicyDescriptor getPolicyDescriptor() {
+        return policyDescriptor.join();
     }
 
-    private void loadAccount() {
+    private Account loadAccount() {
+        Account account;
         String fileName = configProperties.getNetwork().getValue()+"_account";
         if (filesService.exists(fileName)) { //Policy File Exists, Read it.
             String mnemonic = TEXT_ENCRYPTOR.decrypt(filesService.read(fileName));
@@ -52,6 +71,7 @@ public class ConfigService {
             filesService.writeToFile(fileName, TEXT_ENCRYPTOR.encrypt(account.mnemonic()));
         }
         log.info("Wallet Address: "+account.baseAddress());
+        return account;
     }
 
     private Account createAccount() {
@@ -65,16 +85,25 @@ public class ConfigService {
     }
 
     @SneakyThrows
-    private void loadPolicy() {
+    private Policy loadPolicy() {
+        Policy policy;
         String fileName = configProperties.getNetwork().getValue()+"_policy";
         if (filesService.exists(fileName)) { //Policy File Exists, Read it.
             String policyJson = TEXT_ENCRYPTOR.decrypt(filesService.read(fileName));
-            this.policy = objectMapper.readValue(policyJson, Policy.class);
+            policy = objectMapper.readValue(policyJson, Policy.class);
         } else { //Policy File Missing, Create Policy and Save it for persistency.
-            this.policy = createPolicy();
+            policy = createPolicy();
             String policyJson = objectMapper.writeValueAsString(policy);
             filesService.writeToFile(fileName, TEXT_ENCRYPTOR.encrypt(policyJson));
         }
+        return policy;
+    }
+
+    @SneakyThrows
+    private PolicyDescriptor describePolicy(Policy policy) {
+        PolicyDescriptor policyDescriptor = PolicyDescriptor.of(policy.getScriptAll(), FeeCalculator.requiredSigners(policy.getScriptAll()));
+        log.info("Policy Id: " + policyDescriptor.getPolicyId());
+        return policyDescriptor;
     }
 
     @SneakyThrows
@@ -92,6 +121,10 @@ public class ConfigService {
         return configProperties.getNetwork();
     }
 
+    public String getAssetName(int number) {
+        return configProperties.getAssetNamePrefix() + number;
+    }
+
     public String getBlockFrostApiKey() {
         return configProperties.getBlockfrostApiKey();
     }
@@ -0,0 +1,135 @@
+package games.blockchainparty.services;
+
+import com.bloxbean.cardano.client.backend.exception.ApiException;
+import com.bloxbean.cardano.client.backend.model.ProtocolParams;
+import com.bloxbean.cardano.client.exception.CborSerializationException;
+import com.bloxbean.cardano.client.transaction.spec.Transaction;
+import com.bloxbean.cardano.client.transaction.spec.TransactionOutput;
+import com.bloxbean.cardano.client.transaction.spec.script.NativeScript;
+import com.bloxbean.cardano.client.transaction.spec.script.ScriptAll;
+import com.bloxbean.cardano.client.transaction.spec.script.ScriptAny;
+import com.bloxbean.cardano.client.transaction.spec.script.ScriptAtLeast;
+import com.bloxbean.cardano.client.transaction.spec.script.ScriptPubkey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Computes the linear fee (minFeeA * size + minFeeB) offline from the cached {@link ProtocolParams}.
+ * Witnesses are not produced, their size is estimated from the number of expected signers.
+ */
+@Service
+public class FeeCalculator {
+
+    //[vkey(32), signature(64)] -> array header + 2 byte string headers + 96 bytes
+    private static final int VKEY_WITNESS_SIZE = 1 + 2 + 32 + 2 + 64;
+    //[tx hash(32), index] -> array header + byte string header + 32 bytes + index up to 65535, plus the inputs array header growing
+    private static final int INPUT_SIZE = 1 + 2 + 32 + 3 + 1;
+    private static final BigInteger FEE_PLACEHOLDER = BigInteger.valueOf(0xFFFFFFFFL);
+    private static final int MAX_ITERATIONS = 10;
+
+    private final ProtocolParamsProvider protocolParamsProvider;
+
+    @Autowired
+    public FeeCalculator(ProtocolParamsProvider protocolParamsProvider) {
+        this.protocolParamsProvider = protocolParamsProvider;
+    }
+
+    /**
+     * Set the fee on the transaction body and deduct it from the change output.
+     * The transaction is serialized once with a placeholder fee, the fee / change fixpoint is then solved on the CBOR sizes.
+     * Auxiliary data that is attached after serialization replaces the trailing null and is counted by its size.
+     */
+    public BigInteger applyFee(Transaction transaction, TransactionOutput changeOutput, int signerCount, int auxiliaryDataSize) throws ApiException, CborSerializationException {
+        ProtocolParams protocolParams = protocolParamsProvider.getProtocolParams();
+        if (protocolParams == null)
+            throw new ApiException("ProtocolParams are not available yet");
+        BigInteger minFeeA = BigInteger.valueOf(protocolParams.getMinFeeA());
+        BigInteger minFeeB = BigInteger.valueOf(protocolParams.getMinFeeB());
+
+        BigInteger changeCoin = changeOutput.getValue().getCoin();
+        transaction.getBody().setFee(FEE_PLACEHOLDER);
+        long baseSize = transaction.serialize().length + witnessSetSize(signerCount);
+        if (auxiliaryDataSize > 0)
+            baseSize += auxiliaryDataSize - 1;
+
+        BigInteger fee = minFeeA.multiply(BigInteger.valueOf(baseSize)).add(minFeeB);
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            BigInteger requiredFee = minFeeA.multiply(BigInteger.valueOf(sizeWithFee(baseSize, changeCoin, fee))).add(minFeeB);
+            if (requiredFee.equals(fee))
+                break;
+            fee = requiredFee;
+        }
+        fee = fee.max(minFeeA.multiply(BigInteger.valueOf(sizeWithFee(baseSize, changeCoin, fee))).add(minFeeB));
+
+        transaction.getBody().setFee(fee);
+        changeOutput.getValue().setCoin(changeCoin.subtract(fee));
+        return fee;
+    }
+
+    /**
+     * Fee of the transaction once inputCount inputs are added, to select inputs before the real fee is known.
+     * Tokens the inputs bring into the change are not known yet, the caller selects again if the real fee goes over it.
+     */
+    public BigInteger estimateFee(Transaction transaction, int inputCount, int signerCount, int auxiliaryDataSize) throws ApiException, CborSerializationException {
+        ProtocolParams protocolParams = protocolParamsProvider.getProtocolParams();
+        if (protocolParams == null)
+            throw new ApiException("ProtocolParams are not available yet");
+        transaction.getBody().setFee(FEE_PLACEHOLDER);
+        long size = transaction.serialize().length + (long) inputCount * INPUT_SIZE + witnessSetSize(signerCount);
+        if (auxiliaryDataSize > 0)
+            size += auxiliaryDataSize - 1;
+        return BigInteger.valueOf(protocolParams.getMinFeeA()).multiply(BigInteger.valueOf(size))
+                .add(BigInteger.valueOf(protocolParams.getMinFeeB()));
+    }
+
+    /**
+     * Number of vkey witnesses required to satisfy the given native scripts.
+     */
+    public static int requiredSigners(Collection<NativeScript> nativeScripts) {
+        return nativeScripts.stream().mapToInt(FeeCalculator::requiredSigners).sum();
+    }
+
+    public static int requiredSigners(NativeScript nativeScript) {
+        if (nativeScript instanceof ScriptPubkey) {
+            return 1;
+        } else if (nativeScript instanceof ScriptAll) {
+            return requiredSigners(((ScriptAll) nativeScript).getScripts());
+        } else if (nativeScript instanceof ScriptAny) {
+            return ((ScriptAny) nativeScript).getScripts().stream().mapToInt(FeeCalculator::requiredSigners).max().orElse(0);
+        } else if (nativeScript instanceof ScriptAtLeast) {
+            ScriptAtLeast scriptAtLeast = (ScriptAtLeast) nativeScript;
+            return scriptAtLeast.getScripts().stream().map(FeeCalculator::requiredSigners)
+                    .sorted(Comparator.reverseOrder()).limit(scriptAtLeast.getRequired()).mapToInt(Integer::intValue).sum();
+        }
+        return 0; //Time locks
+    }
+
+    private static long sizeWithFee(long placeholderSize, BigInteger changeCoin, BigInteger fee) {
+        return placeholderSize
+                - (uintSize(FEE_PLACEHOLDER) - uintSize(fee))
+                - (uintSize(changeCoin) - uintSize(changeCoin.subtract(fee)));
+    }
+
+    /**
+     * Bytes the vkey witnesses of signerCount signers add to the witness set.
+     */
+    public static long witnessSetSize(int signerCount) {
+        if (signerCount <= 0)
+            return 0;
+        //map key 0 + array header + witnesses
+        return 1 + uintSize(BigInteger.valueOf(signerCount)) + (long) signerCount * VKEY_WITNESS_SIZE;
+    }
+
+    private static int uintSize(BigInteger value) {
+        long v = value.longValue();
+        if (v < 24) return 1;
+        if (v < 0x100) return 2;
+        if (v < 0x10000) return 3;
+        if (v < 0x100000000L) return 5;
+        return 9;
+    }
+}
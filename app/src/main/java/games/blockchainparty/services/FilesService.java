@@ -1,6 +1,7 @@
 package games.blockchainparty.services;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
@@ -11,14 +12,25 @@ import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class FilesService {
 
-    private final Path root = Paths.get("data");
+    private final Path root;
 
+    @Autowired
     public FilesService() {
+        this(Paths.get("data"));
+    }
+
+    public FilesService(Path root) {
+        this.root = root;
         try {
             if (!Files.exists(root)) {
                 Files.createDirectory(root);
@@ -55,6 +67,28 @@ public class FilesService {
         FileSystemUtils.deleteRecursively(root.toFile());
     }
 
+    public Path resolve(String filename) {
+        return root.resolve(filename);
+    }
+
+    /**
+     * Open an append-only {@link Journal} under data/, replaying its records first.
+     */
+    public Journal openJournal(String filename, Consumer<byte[]> replay) throws IOException {
+        return Journal.open(root.resolve(filename), replay);
+    }
+
+    public List<String> list(String prefix) {
+        try (Stream<Path> files = Files.list(root)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+            return Collections.emptyList();
+        }
+    }
+
     public boolean exists(String filename) {
         try {
             Path file = root.resolve(filename);
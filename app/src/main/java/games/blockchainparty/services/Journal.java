@@ -0,0 +1,239 @@
+package games.blockchainparty.services;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only record log with group commit: concurrent appends are written by one writer thread in batches, with a single fsync per batch.
+ * Records are framed as [length, crc32c, payload], a torn or corrupt tail is cut off on replay.
+ * A batch that fails to write is cut off again right away, if that fails too the journal rejects all further appends.
+ */
+@Slf4j
+public final class Journal implements Closeable {
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+    private static final int MAX_BATCH = 1024;
+
+    private final Path path;
+    private final BlockingQueue<PendingAppend> queue = new LinkedBlockingQueue<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Thread writer;
+    private FileChannel channel;
+    private volatile boolean running = true;
+    private volatile IOException failure;
+
+    private Journal(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.writer = new Thread(this::writeLoop, "journal-" + path.getFileName());
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Open the journal, passing every intact record to replay before any new append is accepted.
+     */
+    public static Journal open(Path path, Consumer<byte[]> replay) throws IOException {
+        Journal journal = new Journal(path);
+        journal.replay(replay);
+        journal.writer.start();
+        return journal;
+    }
+
+    /**
+     * @return completes once the record is on disk
+     */
+    public CompletableFuture<Void> append(byte[] payload) {
+        if (payload.length > MAX_RECORD_SIZE)
+            throw new IllegalArgumentException("Journal record too large: " + payload.length);
+        PendingAppend pending = new PendingAppend(payload);
+        if (failure != null) {
+            pending.future.completeExceptionally(failure);
+        } else if (!running) {
+            pending.future.completeExceptionally(new IOException("Journal " + path.getFileName() + " is closed"));
+        } else {
+            queue.add(pending);
+        }
+        return pending.future;
+    }
+
+    public void appendDurably(byte[] payload) throws IOException {
+        try {
+            append(payload).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Atomically replace the journal content with the given records, used for compaction.
+     */
+    public void rewrite(Collection<byte[]> payloads) throws IOException {
+        writeLock.lock();
+        try {
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel tmpChannel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                List<ByteBuffer> buffers = new ArrayList<>(payloads.size() * 2);
+                payloads.forEach(payload -> frame(payload, buffers));
+                writeFully(tmpChannel, buffers.toArray(new ByteBuffer[0]));
+                tmpChannel.force(true);
+            }
+            channel.close();
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeLock.lock();
+        try {
+            channel.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void replay(Consumer<byte[]> replay) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        int records = 0;
+        CRC32C crc = new CRC32C();
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || length > MAX_RECORD_SIZE || length > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                buffer.position(start);
+                break;
+            }
+            replay.accept(payload);
+            records++;
+        }
+        if (buffer.hasRemaining()) {
+            log.warn("Journal " + path.getFileName() + ": dropping " + buffer.remaining() + " bytes of torn or corrupt tail");
+            channel.truncate(buffer.position());
+            channel.force(true);
+        }
+        channel.position(buffer.position());
+        log.info("Journal " + path.getFileName() + ": replayed " + records + " records");
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAppend first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                writeBatch(batch);
+                batch.forEach(pending -> pending.future.complete(null));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("Journal " + path.getFileName() + " write failed", e);
+                batch.forEach(pending -> pending.future.completeExceptionally(e));
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<PendingAppend> batch) throws IOException {
+        List<ByteBuffer> buffers = new ArrayList<>(batch.size() * 2);
+        batch.forEach(pending -> frame(pending.payload, buffers));
+        writeLock.lock();
+        try {
+            if (failure != null)
+                throw failure;
+            long start = channel.position();
+            try {
+                writeFully(channel, buffers.toArray(new ByteBuffer[0]));
+                channel.force(false);
+            } catch (IOException | RuntimeException e) {
+                rollback(start);
+                throw e;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Cut off a partially written batch, so later batches are not appended behind a torn frame that replay would stop at.
+     */
+    private void rollback(long position) {
+        try {
+            channel.truncate(position);
+            channel.position(position);
+            channel.force(true);
+        } catch (IOException e) {
+            log.error("Journal " + path.getFileName() + " could not be rolled back to " + position + ", rejecting further appends", e);
+            failure = new IOException("Journal " + path.getFileName() + " failed", e);
+        }
+    }
+
+    private static void frame(byte[] payload, List<ByteBuffer> buffers) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        buffers.add(ByteBuffer.allocate(HEADER_SIZE).putInt(payload.length).putInt((int) crc.getValue()).flip());
+        buffers.add(ByteBuffer.wrap(payload));
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer[] buffers) throws IOException {
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            remaining -= channel.write(buffers);
+        }
+    }
+
+    private static final class PendingAppend {
+
+        private final byte[] payload;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingAppend(byte[] payload) {
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package games.blockchainparty.services;
+
+import co.nstant.in.cbor.CborEncoder;
+import co.nstant.in.cbor.CborException;
+import co.nstant.in.cbor.model.Array;
+import co.nstant.in.cbor.model.DataItem;
+import co.nstant.in.cbor.model.NegativeInteger;
+import co.nstant.in.cbor.model.UnicodeString;
+import co.nstant.in.cbor.model.UnsignedInteger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import games.blockchainparty.services.cbor.CborReader;
+import games.blockchainparty.services.cbor.CborWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * CIP-25 metadata per number, read from data/catalog.json ({"1": {"name": ..., "image": ...}, ...}).
+ * Every entry is compiled once to CBOR into data/catalog.bin, which is memory-mapped and looked up by binary search over its offset index.
+ * Transactions get their 721 metadata spliced together from these fragments, the bytes go into the transaction without being decoded.
+ */
+@Service
+@Slf4j
+public class MetadataCatalog {
+
+    private static final String SOURCE_FILE = "catalog.json";
+    private static final String COMPILED_FILE = "catalog.bin";
+    private static final int MAGIC = 0x43544C47; //CTLG
+    private static final int VERSION = 1;
+    private static final int INDEX_ENTRY_SIZE = 3 * Integer.BYTES; //number, offset, length
+    private static final int MAX_STRING_BYTES = 64;
+    private static final int CIP25_LABEL = 721;
+    private static final int NULL = 0xF6;
+
+    private final ConfigService configService;
+    private final FilesService filesService;
+    private MappedByteBuffer catalog;
+    private int entries;
+    private int indexStart;
+    private int dataStart;
+
+    @Autowired
+    public MetadataCatalog(ConfigService configService, FilesService filesService) {
+        this.configService = configService;
+        this.filesService = filesService;
+        try {
+            Path source = filesService.resolve(SOURCE_FILE);
+            Path compiled = filesService.resolve(COMPILED_FILE);
+            boolean sourceChanged = Files.exists(source) && (!Files.exists(compiled) || Files.getLastModifiedTime(source).compareTo(Files.getLastModifiedTime(compiled)) > 0);
+            boolean loaded = !sourceChanged && Files.exists(compiled) && load(compiled);
+            if (!loaded && Files.exists(source)) {
+                compile(source, compiled);
+                load(compiled);
+            }
+        } catch (IOException | CborException e) {
+            throw new RuntimeException("Could not initialize metadata catalog!", e);
+        }
+        log.info("Metadata Catalog loaded: " + entries + " entries");
+    }
+
+    /**
+     * Encoded 721 metadata for the given numbers, which is the transaction's auxiliary data as is. Numbers missing from the catalog only get a name.
+     */
+    public byte[] getAuxiliaryData(String policyId, List<Integer> numbers) {
+        CborWriter out = new CborWriter(256 * numbers.size())
+                .writeHeader(CborReader.MAJOR_MAP, 1)
+                .writeHeader(CborReader.MAJOR_UNSIGNED, CIP25_LABEL)
+                .writeHeader(CborReader.MAJOR_MAP, 1)
+                .writeText(policyId)
+                .writeHeader(CborReader.MAJOR_MAP, numbers.size());
+        for (Integer number : numbers) {
+            String assetName = configService.getAssetName(number);
+            out.writeText(assetName);
+            byte[] fragment = getFragment(number);
+            if (fragment != null) {
+                out.writeRaw(fragment);
+            } else {
+                out.writeHeader(CborReader.MAJOR_MAP, 1).writeText("name");
+                List<String> chunks = chunks(assetName);
+                if (chunks.size() == 1) {
+                    out.writeText(assetName);
+                } else {
+                    out.writeHeader(CborReader.MAJOR_ARRAY, chunks.size());
+                    chunks.forEach(out::writeText);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Put the encoded auxiliary data in place of the null a transaction without metadata is serialized with.
+     * The body has to carry the auxiliary data hash already.
+     */
+    public static byte[] attachAuxiliaryData(byte[] transactionBytes, byte[] auxiliaryData) {
+        CborReader reader = new CborReader(transactionBytes);
+        if (reader.readHeader(CborReader.MAJOR_ARRAY) != 4)
+            throw new IllegalArgumentException("Not a transaction");
+        reader.skip(); //body
+        reader.skip(); //witness set
+        reader.skip(); //is valid
+        int position = reader.position();
+        if (transactionBytes.length != position + 1 || (transactionBytes[position] & 0xFF) != NULL)
+            throw new IllegalArgumentException("Transaction already has auxiliary data");
+        byte[] spliced = Arrays.copyOf(transactionBytes, position + auxiliaryData.length);
+        System.arraycopy(auxiliaryData, 0, spliced, position, auxiliaryData.length);
+        return spliced;
+    }
+
+    /**
+     * Precompiled CBOR of the asset map for a number, or null if the catalog has no entry.
+     */
+    public byte[] getFragment(int number) {
+        MappedByteBuffer buffer = catalog;
+        if (buffer == null)
+            return null;
+        int low = 0;
+        int high = entries - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int position = indexStart + mid * INDEX_ENTRY_SIZE;
+            int entryNumber = buffer.getInt(position);
+            if (entryNumber < number) {
+                low = mid + 1;
+            } else if (entryNumber > number) {
+                high = mid - 1;
+            } else {
+                byte[] fragment = new byte[buffer.getInt(position + 2 * Integer.BYTES)];
+                buffer.get(dataStart + buffer.getInt(position + Integer.BYTES), fragment, 0, fragment.length);
+                return fragment;
+            }
+        }
+        return null;
+    }
+
+    private boolean load(Path compiled) throws IOException {
+        try (FileChannel channel = FileChannel.open(compiled, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                return false;
+            byte[] prefix = new byte[buffer.getInt()];
+            buffer.get(prefix);
+            if (!new String(prefix, StandardCharsets.UTF_8).equals(configService.getConfigProperties().getAssetNamePrefix()))
+                return false; //Names were compiled with another prefix
+            entries = buffer.getInt();
+            indexStart = buffer.position();
+            dataStart = indexStart + entries * INDEX_ENTRY_SIZE;
+            catalog = buffer;
+            return true;
+        }
+    }
+
+    private void compile(Path source, Path compiled) throws IOException, CborException {
+        JsonNode root = new ObjectMapper().readTree(source.toFile());
+        Map<Integer, byte[]> fragments = new TreeMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> fields = root.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            int number;
+            try {
+                number = Integer.parseInt(field.getKey());
+            } catch (NumberFormatException e) {
+                throw new IOException("Catalog key \"" + field.getKey() + "\" is not a number");
+            }
+            if (number < 0)
+                throw new IOException("Catalog key \"" + field.getKey() + "\" is negative");
+            if (!field.getValue().isObject())
+                throw new IOException("Catalog entry \"" + field.getKey() + "\" is not an object");
+            co.nstant.in.cbor.model.Map asset = (co.nstant.in.cbor.model.Map) toCbor(field.getValue());
+            if (asset.get(new UnicodeString("name")) == null) {
+                asset.put(new UnicodeString("name"), toText(configService.getAssetName(number)));
+            }
+            fragments.put(number, encode(asset));
+        }
+
+        byte[] prefix = configService.getConfigProperties().getAssetNamePrefix().getBytes(StandardCharsets.UTF_8);
+        long headerSize = 4L * Integer.BYTES + prefix.length;
+        long size = headerSize + (long) fragments.size() * INDEX_ENTRY_SIZE + fragments.values().stream().mapToLong(fragment -> fragment.length).sum();
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("Metadata catalog too large: " + size + " bytes");
+        Path tmp = filesService.resolve(COMPILED_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(prefix.length).put(prefix).putInt(fragments.size());
+            int offset = 0;
+            for (Map.Entry<Integer, byte[]> fragment : fragments.entrySet()) {
+                buffer.putInt(fragment.getKey()).putInt(offset).putInt(fragment.getValue().length);
+                offset += fragment.getValue().length;
+            }
+            for (byte[] fragment : fragments.values()) {
+                buffer.put(fragment);
+            }
+            buffer.force();
+        }
+        Files.move(tmp, compiled, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Compiled " + fragments.size() + " catalog entries into " + COMPILED_FILE);
+    }
+
+    private static DataItem toCbor(JsonNode node) {
+        if (node.isObject()) {
+            co.nstant.in.cbor.model.Map map = new co.nstant.in.cbor.model.Map();
+            node.fields().forEachRemaining(field -> map.put(toText(field.getKey()), toCbor(field.getValue())));
+            return map;
+        } else if (node.isArray()) {
+            Array array = new Array();
+            node.forEach(element -> array.add(toCbor(element)));
+            return array;
+        } else if (node.isIntegralNumber()) {
+            BigInteger value = node.bigIntegerValue();
+            return value.signum() >= 0 ? new UnsignedInteger(value) : new NegativeInteger(value);
+        }
+        return toText(node.asText());
+    }
+
+    /**
+     * Metadata strings are limited to 64 bytes, longer ones become an array of chunks as CIP-25 describes.
+     */
+    private static DataItem toText(String text) {
+        List<String> chunks = chunks(text);
+        if (chunks.size() == 1)
+            return new UnicodeString(text);
+        Array array = new Array();
+        chunks.forEach(chunk -> array.add(new UnicodeString(chunk)));
+        return array;
+    }
+
+    /**
+     * The text split into chunks of at most 64 UTF-8 bytes, never inside a code point.
+     */
+    private static List<String> chunks(String text) {
+        if (text.getBytes(StandardCharsets.UTF_8).length <= MAX_STRING_BYTES)
+            return List.of(text);
+        List<String> chunks = new ArrayList<>();
+        int start = 0;
+        int bytes = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            int codePointBytes = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8).length;
+            if (bytes + codePointBytes > MAX_STRING_BYTES) {
+                chunks.add(text.substring(start, i));
+                start = i;
+                bytes = 0;
+            }
+            bytes += codePointBytes;
+            i += Character.charCount(codePoint);
+        }
+        chunks.add(text.substring(start));
+        return chunks;
+    }
+
+    private static byte[] encode(DataItem dataItem) throws CborException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new CborEncoder(out).encode(dataItem);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,223 @@
+package games.blockchainparty.services;
+
+import games.blockchainparty.services.model.PagedBitmap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Minted numbers held in a {@link PagedBitmap}.
+ * Persisted as a memory-mapped snapshot of the non-empty pages plus a {@link Journal} of mints since that snapshot.
+ */
+@Service
+@Slf4j
+public class MintedRegistry {
+
+    private static final String SNAPSHOT_FILE = "minted.snapshot";
+    private static final String JOURNAL_FILE = "minted.journal";
+    private static final String LEGACY_LOG_FILE = "minted.log";
+    private static final String LEGACY_PREFIX = "tx_";
+    private static final int MAGIC = 0x4D4E5444; //MNTD
+    private static final int VERSION = 1;
+    private static final int COMPACT_AFTER = 10_000;
+
+    private final FilesService filesService;
+    private final PagedBitmap bitmap = new PagedBitmap();
+    private final ReadWriteLock compactionLock = new ReentrantReadWriteLock();
+    private final AtomicInteger journalEntries = new AtomicInteger();
+    private final String generation = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private Journal journal;
+
+    @Autowired
+    public MintedRegistry(FilesService filesService) {
+        this.filesService = filesService;
+        try {
+            Path snapshot = filesService.resolve(SNAPSHOT_FILE);
+            Path legacyLog = filesService.resolve(LEGACY_LOG_FILE);
+            boolean firstStart = !Files.exists(snapshot) && !Files.exists(legacyLog) && !filesService.exists(JOURNAL_FILE);
+            if (Files.exists(snapshot)) {
+                loadSnapshot(snapshot);
+            }
+            journal = filesService.openJournal(JOURNAL_FILE, this::replayRecord);
+            if (firstStart) {
+                migrateLegacyFiles();
+                writeSnapshot();
+            } else if (Files.exists(legacyLog)) {
+                replayLegacyLog(legacyLog);
+                writeSnapshot();
+                Files.delete(legacyLog);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not initialize minted registry!", e);
+        }
+        log.info("Minted Registry loaded: " + bitmap.cardinality() + " numbers");
+    }
+
+    public boolean isMinted(int number) {
+        return bitmap.get(number);
+    }
+
+    /**
+     * Minted flags of count numbers starting at from, bit i (least significant first within each byte) for number from + i.
+     */
+    public byte[] mintedRange(int from, int count) {
+        return bitmap.toBytes(from, count);
+    }
+
+    /**
+     * Grows whenever a number in the range is minted. Versions restart with the process, pair them with {@link #getGeneration()}.
+     */
+    public long rangeVersion(int from, int count) {
+        return bitmap.version(from, from + count);
+    }
+
+    public String getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Durably record the numbers as minted. Concurrent callers share the journal fsync.
+     * @throws IllegalArgumentException for a null or negative number, before anything is journaled
+     */
+    public void markMinted(Collection<Integer> numbers, String txId) {
+        if (numbers.stream().anyMatch(number -> number == null || number < 0))
+            throw new IllegalArgumentException("Numbers must be non-negative: " + numbers);
+        compactionLock.readLock().lock();
+        try {
+            List<CompletableFuture<Void>> appends = new ArrayList<>();
+            for (Integer number : numbers) {
+                if (!bitmap.get(number)) {
+                    appends.add(journal.append((number + " " + txId).getBytes(StandardCharsets.UTF_8)));
+                }
+            }
+            CompletableFuture.allOf(appends.toArray(new CompletableFuture<?>[0])).join();
+            numbers.forEach(bitmap::set);
+            journalEntries.addAndGet(appends.size());
+        } catch (CompletionException e) {
+            throw new RuntimeException("Could not persist minted numbers " + numbers, e.getCause());
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+        if (journalEntries.get() >= COMPACT_AFTER) {
+            compact();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    private void compact() {
+        compactionLock.writeLock().lock();
+        try {
+            if (journalEntries.get() < COMPACT_AFTER)
+                return;
+            writeSnapshot();
+            journal.rewrite(Collections.emptyList());
+            journalEntries.set(0);
+        } catch (IOException e) {
+            log.error("Minted registry compaction failed", e);
+        } finally {
+            compactionLock.writeLock().unlock();
+        }
+    }
+
+    private void loadSnapshot(Path snapshot) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unknown minted snapshot format");
+            }
+            int pages = buffer.getInt();
+            long[] words = new long[PagedBitmap.WORDS_PER_PAGE];
+            for (int p = 0; p < pages; p++) {
+                int pageIndex = buffer.getInt();
+                buffer.asLongBuffer().get(words);
+                buffer.position(buffer.position() + words.length * Long.BYTES);
+                bitmap.loadPage(pageIndex, words);
+            }
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        int pages = 0;
+        for (int p = 0; p < bitmap.pageCount(); p++) {
+            if (bitmap.pageWords(p) != null) pages++;
+        }
+        long size = 3L * Integer.BYTES + (long) pages * (Integer.BYTES + PagedBitmap.WORDS_PER_PAGE * Long.BYTES);
+        Path snapshot = filesService.resolve(SNAPSHOT_FILE);
+        Path tmp = filesService.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(pages);
+            for (int p = 0, written = 0; p < bitmap.pageCount() && written < pages; p++) {
+                long[] words = bitmap.pageWords(p);
+                if (words == null)
+                    continue;
+                buffer.putInt(p);
+                buffer.asLongBuffer().put(words);
+                buffer.position(buffer.position() + words.length * Long.BYTES);
+                written++;
+            }
+            buffer.force();
+        }
+        Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void replayRecord(byte[] record) {
+        String entry = new String(record, StandardCharsets.UTF_8);
+        int separator = entry.indexOf(' ');
+        try {
+            bitmap.set(Integer.parseInt(separator > 0 ? entry.substring(0, separator) : entry));
+        } catch (IllegalArgumentException e) { //Malformed or negative number
+            log.warn("Skipping minted journal entry that cannot be applied: " + entry);
+        }
+        journalEntries.incrementAndGet();
+    }
+
+    private void replayLegacyLog(Path logFile) throws IOException {
+        for (String line : Files.readAllLines(logFile, StandardCharsets.UTF_8)) {
+            int separator = line.indexOf(' ');
+            try {
+                bitmap.set(Integer.parseInt(separator > 0 ? line.substring(0, separator) : line));
+            } catch (NumberFormatException e) { //Torn write at the tail
+                log.warn("Skipping malformed minted log entry: " + line);
+            }
+        }
+    }
+
+    private void migrateLegacyFiles() {
+        List<String> legacyFiles = filesService.list(LEGACY_PREFIX);
+        for (String fileName : legacyFiles) {
+            try {
+                bitmap.set(Integer.parseInt(fileName.substring(LEGACY_PREFIX.length())));
+            } catch (NumberFormatException e) {
+                log.warn("Skipping unexpected file: " + fileName);
+            }
+        }
+        if (!legacyFiles.isEmpty()) {
+            log.info("Migrated " + legacyFiles.size() + " tx_ files into the minted registry");
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package games.blockchainparty.services;
+
+import com.bloxbean.cardano.client.backend.api.BackendService;
+import com.bloxbean.cardano.client.backend.api.helper.UtxoSelectionStrategy;
+import com.bloxbean.cardano.client.backend.exception.ApiException;
+import com.bloxbean.cardano.client.backend.exception.InsufficientBalanceException;
+import com.bloxbean.cardano.client.backend.model.ProtocolParams;
+import com.bloxbean.cardano.client.backend.model.Result;
+import com.bloxbean.cardano.client.backend.model.TransactionContent;
+import com.bloxbean.cardano.client.backend.model.Utxo;
+import com.bloxbean.cardano.client.common.MinAdaCalculator;
+import com.bloxbean.cardano.client.exception.CborDeserializationException;
+import com.bloxbean.cardano.client.exception.CborSerializationException;
+import com.bloxbean.cardano.client.transaction.model.TransactionDetailsParams;
+import com.bloxbean.cardano.client.transaction.spec.*;
+import com.bloxbean.cardano.client.util.HexUtil;
+import games.blockchainparty.controllers.model.SubmitRequest;
+import games.blockchainparty.services.exception.RejectedTransactionException;
+import games.blockchainparty.services.exception.TransactionTooLargeException;
+import games.blockchainparty.services.metrics.MeteredBackendService;
+import games.blockchainparty.services.model.PolicyDescriptor;
+import games.blockchainparty.services.model.SignedTransaction;
+import games.blockchainparty.services.model.ValueAccumulator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+import static com.bloxbean.cardano.client.common.CardanoConstants.LOVELACE;
+import static com.bloxbean.cardano.client.crypto.KeyGenUtil.blake2bHash256;
+
+@Service
+@Slf4j
+public class MinterService {
+
+    public static final long TTL_SLOTS = 2000;
+    private static final int MAX_LEASE_ATTEMPTS = 3;
+    private static final int PROJECTED_INPUTS = 2;
+    private static final int MAX_SELECTIONS = 3;
+
+    private final ConfigService configService;
+    private final BackendService backendService;
+    private final ProtocolParamsProvider protocolParamsProvider;
+    private final SlotClock slotClock;
+    private final UtxoSelectionStrategy utxoSelectionStrategy;
+    private final SignerRegistry signerRegistry;
+    private final FeeCalculator feeCalculator;
+    private final MetadataCatalog metadataCatalog;
+    private final BuiltTransactionCache builtTransactionCache;
+    private final UtxoLeaseManager utxoLeaseManager;
+    private final ExecutorService minterExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Timer feeTimer;
+    private final DistributionSummary transactionSize;
+    private final DistributionSummary transactionFee;
+    private final DistributionSummary backendCallsPerBuild;
+
+    @Autowired
+    public MinterService(ConfigService configService, BackendService backendService, ProtocolParamsProvider protocolParamsProvider, SlotClock slotClock, UtxoSelectionStrategy utxoSelectionStrategy, SignerRegistry signerRegistry, FeeCalculator feeCalculator, MetadataCatalog metadataCatalog,
+                         BuiltTransactionCache builtTransactionCache, UtxoLeaseManager utxoLeaseManager, ExecutorService minterExecutor, MeterRegistry meterRegistry) {
+        this.configService = configService;
+        this.backendService = backendService;
+        this.protocolParamsProvider = protocolParamsProvider;
+        this.slotClock = slotClock;
+        this.utxoSelectionStrategy = utxoSelectionStrategy;
+        this.signerRegistry = signerRegistry;
+        this.feeCalculator = feeCalculator;
+        this.metadataCatalog = metadataCatalog;
+        this.builtTransactionCache = builtTransactionCache;
+        this.utxoLeaseManager = utxoLeaseManager;
+        this.minterExecutor = minterExecutor;
+        this.meterRegistry = meterRegistry;
+        this.feeTimer = meterRegistry.timer("minter.fee");
+        this.transactionSize = DistributionSummary.builder("minter.tx.size").baseUnit("bytes").register(meterRegistry);
+        this.transactionFee = DistributionSummary.builder("minter.tx.fee").baseUnit("lovelace").register(meterRegistry);
+        this.backendCallsPerBuild = meterRegistry.summary("minter.build.backend.calls");
+    }
+
+    public CompletableFuture<String> createTransactionAsync(String userAddr, List<Integer> numbers) {
+        return async(() -> createTransaction(userAddr, numbers));
+    }
+
+    public CompletableFuture<SignedTransaction> signTransactionAsync(SubmitRequest submitRequest) {
+        return async(() -> signTransaction(submitRequest));
+    }
+
+    private <T> CompletableFuture<T> async(Callable<T> callable) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return callable.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, minterExecutor);
+    }
+
+    public String createTransaction(String userAddr, Integer number) throws ApiException, CborSerializationException {
+        return createTransaction(userAddr, Collections.singletonList(number));
+    }
+
+    /**
+     * Build one transaction minting an asset for each number to userAddr.
+     */
+    public String createTransaction(String userAddr, List<Integer> numbers) throws ApiException, CborSerializationException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int backendCalls = MeteredBackendService.callsOnCurrentThread();
+        String outcome = "error";
+        try {
+            String transaction = buildTransaction(userAddr, numbers);
+            outcome = "success";
+            return transaction;
+        } catch (InsufficientBalanceException e) {
+            outcome = "insufficient_balance";
+            throw e;
+        } catch (TransactionTooLargeException e) {
+            outcome = "too_large";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("minter.build", "outcome", outcome));
+            backendCallsPerBuild.record(MeteredBackendService.callsOnCurrentThread() - backendCalls);
+        }
+    }
+
+    private String buildTransaction(String userAddr, List<Integer> numbers) throws ApiException, CborSerializationException {
+        PolicyDescriptor policy = configService.getPolicyDescriptor();
+        ProtocolParams protocolParams = protocolParamsProvider.getProtocolParams();
+        if (protocolParams == null)
+            throw new ApiException("ProtocolParams are not available yet");
+        MinAdaCalculator minAdaCalculator = protocolParamsProvider.getMinAdaCalculator();
+        long ttl = slotClock.getCurrentSlot() + TTL_SLOTS;
+        TransactionDetailsParams detailsParams = TransactionDetailsParams.builder().ttl(ttl).build();
+        List<String> assetNames = numbers.stream().map(configService::getAssetName).collect(Collectors.toList());
+        List<MultiAsset> multiAssetList = Collections.singletonList(createMultiAsset(policy.getPolicyId(), assetNames));
+
+        BigInteger minAmount = createDummyOutputAndCalculateMinAdaForTxnOutput(userAddr, multiAssetList, minAdaCalculator);
+
+        TransactionOutput mintedTransactionOutput = new TransactionOutput();
+        mintedTransactionOutput.setAddress(userAddr);
+        Value value = Value.builder()
+                .coin(minAmount)
+                .multiAssets(new ArrayList<>())
+                .build();
+        mintedTransactionOutput.setValue(value);
+        for (MultiAsset ma : multiAssetList) {
+            mintedTransactionOutput.getValue().getMultiAssets().add(ma);
+        }
+
+        //Inputs and change value are filled in per selection
+        TransactionOutput change = TransactionOutput
+                .builder()
+                .address(userAddr)
+                .value(new Value(minAmount, new ArrayList<>()))
+                .build();
+        List<TransactionOutput> outputs = Arrays.asList(change, mintedTransactionOutput);
+
+        TransactionBody body = TransactionBody.builder().inputs(new ArrayList<>())
+                .outputs(outputs)
+                .fee(BigInteger.valueOf(170000))
+                .ttl(detailsParams.getTtl())
+                .validityStartInterval(detailsParams.getValidityStartInterval())
+                .mint(multiAssetList)
+                .build();
+
+        // Sign ->
+        TransactionWitnessSet transactionWitnessSet = new TransactionWitnessSet();
+        transactionWitnessSet.getNativeScripts().add(policy.getScript());
+
+        //The metadata is spliced in as encoded, only its hash goes into the body
+        byte[] auxiliaryData = metadataCatalog.getAuxiliaryData(policy.getPolicyId(), numbers);
+        body.setAuxiliaryDataHash(blake2bHash256(auxiliaryData));
+        Transaction transaction = Transaction.builder().body(body).witnessSet(transactionWitnessSet).build();
+
+        //User wallet + server account + policy script signers
+        int signers = 2 + policy.getRequiredSigners();
+
+        //The selection covers the minted output, the fee estimated for the projected input count and the min-ADA of the change.
+        //Inputs leased to other pending transactions are skipped, a rebuild of the same numbers may reuse its own.
+        String leaseHolder = userAddr + numbers.stream().sorted().collect(Collectors.toList());
+        BigInteger feeAllowance = feeCalculator.estimateFee(transaction, PROJECTED_INPUTS, signers, auxiliaryData.length);
+        for (int selection = 1; ; selection++) {
+            List<Utxo> utxos = leaseUtxos(leaseHolder, userAddr, minAmount.add(feeAllowance), ttl);
+            boolean built = false;
+            try {
+                List<TransactionInput> inputs = new ArrayList<>();
+                ValueAccumulator changeValue = new ValueAccumulator();
+                for (Utxo utxo : utxos) {
+                    TransactionInput input = TransactionInput.builder()
+                            .transactionId(utxo.getTxHash())
+                            .index(utxo.getOutputIndex()).build();
+                    inputs.add(input);
+                    changeValue.add(utxo);
+                }
+
+                //Deduct minCost in a MA output, the fee follows once the size is known
+                changeValue.addCoin(minAmount.negate());
+                change.setValue(changeValue.toValue());
+                body.setInputs(inputs);
+
+                Timer.Sample feeSample = Timer.start(meterRegistry);
+                BigInteger fee = feeCalculator.applyFee(transaction, change, signers, auxiliaryData.length);
+                feeSample.stop(feeTimer);
+                BigInteger changeMinAda = minAdaCalculator.calculateMinAda(change);
+                if (change.getValue().getCoin().compareTo(changeMinAda) < 0) {
+                    //More or heavier inputs than projected, select again for the real fee.
+                    if (fee.compareTo(feeAllowance) > 0 && selection < MAX_SELECTIONS) {
+                        feeAllowance = fee;
+                        continue;
+                    }
+                    throw new InsufficientBalanceException("Change of " + change.getValue().getCoin() + " lovelace is below min-ADA " + changeMinAda);
+                }
+
+                byte[] transactionBytes = MetadataCatalog.attachAuxiliaryData(transaction.serialize(), auxiliaryData);
+                long signedSize = transactionBytes.length + FeeCalculator.witnessSetSize(signers);
+                if (signedSize > protocolParams.getMaxTxSize())
+                    throw new TransactionTooLargeException(signedSize, protocolParams.getMaxTxSize());
+                transactionSize.record(signedSize);
+                transactionFee.record(fee.doubleValue());
+
+                builtTransactionCache.put(transactionBytes, numbers, userAddr, ttl, inputs);
+                built = true;
+                return HexUtil.encodeHexString(transactionBytes);
+            } finally {
+                if (!built) {
+                    utxoLeaseManager.release(leaseHolder, utxos.stream().map(utxo -> UtxoLeaseManager.ref(utxo.getTxHash(), utxo.getOutputIndex())).collect(Collectors.toList()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the server witnesses to the user-signed transaction of a build made here.
+     * It is completed on the raw bytes, or deserialized and signed in full if the wallet re-encoded more than its own witnesses.
+     * @throws RejectedTransactionException if the body was not built here, or does not mint exactly the numbers of its build
+     */
+    public SignedTransaction signTransaction(SubmitRequest submitRequest) throws ApiException, CborDeserializationException, CborSerializationException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        byte[] transactionBytes = HexUtil.decodeHexString(submitRequest.getTxHash());
+        BuiltTransactionCache.BuiltTransaction built = builtTransactionCache.find(transactionBytes)
+                .orElseThrow(() -> new RejectedTransactionException("Transaction was not built here or has expired"));
+        String path = "cached";
+        SignedTransaction signed = builtTransactionCache.complete(transactionBytes, built).orElse(null);
+        if (signed == null) {
+            Transaction transaction = Transaction.deserialize(transactionBytes);
+            transaction = signerRegistry.signAsServer(transaction);
+            transaction.setValid(true);
+            signed = SignedTransaction.of(transaction, built.getNumbers(), built.getChangeAddress());
+            if (!signed.getTxId().equals(SignedTransaction.txId(transactionBytes)))
+                throw new RejectedTransactionException("Transaction body does not survive re-encoding");
+            path = "full";
+        }
+        checkMint(signed);
+        sample.stop(meterRegistry.timer("minter.sign", "path", path));
+        return signed;
+    }
+
+    /**
+     * The policy key signs only transactions minting one of each asset of the build's numbers and nothing else.
+     */
+    private void checkMint(SignedTransaction signed) throws RejectedTransactionException {
+        Map<String, Long> assets = new HashMap<>();
+        signed.getNumbers().forEach(number -> assets.put(HexUtil.encodeHexString(new Asset(configService.getAssetName(number), BigInteger.ONE).getNameAsBytes()), 1L));
+        if (!SignedTransaction.mint(signed.getBytes()).equals(Map.of(configService.getPolicyDescriptor().getPolicyId(), assets)))
+            throw new RejectedTransactionException("Transaction does not mint exactly " + signed.getNumbers());
+    }
+
+    public Result<String> submitTransaction(byte[] transactionBytes) throws ApiException {
+        return backendService.getTransactionService().submitTransaction(transactionBytes);
+    }
+
+    /**
+     * @return false only when Blockfrost does not know the transaction
+     * @throws ApiException if the lookup failed, which says nothing about the transaction
+     */
+    public boolean isConfirmed(String txId) throws ApiException {
+        Result<TransactionContent> result = backendService.getTransactionService().getTransaction(txId);
+        if (result.isSuccessful())
+            return true;
+        if (result.code() == 404)
+            return false;
+        throw new ApiException("Lookup of transaction " + txId + " failed: " + result.code() + " " + result.getResponse());
+    }
+
+    private List<Utxo> getUtxos(String address, String unit, BigInteger amount, Set<Utxo> excludeUtxos) throws ApiException {
+        return utxoSelectionStrategy.selectUtxos(address, unit, amount, excludeUtxos);
+    }
+
+    /**
+     * Select lovelace inputs and lease them until the transaction TTL, selecting again if a concurrent build leased one of them first.
+     */
+    private List<Utxo> leaseUtxos(String leaseHolder, String address, BigInteger amount, long ttl) throws ApiException {
+        for (int attempt = 0; attempt < MAX_LEASE_ATTEMPTS; attempt++) {
+            List<Utxo> utxos = getUtxos(address, LOVELACE, amount, utxoLeaseManager.leasedByOthers(leaseHolder));
+            if (utxos.isEmpty())
+                throw new InsufficientBalanceException("Not enough unleased utxos found to cover balance : " + amount + " lovelace");
+            if (utxoLeaseManager.lease(leaseHolder, utxos, ttl))
+                return utxos;
+        }
+        throw new ApiException("Inputs of " + address + " are contended by concurrent builds");
+    }
+
+    private MultiAsset createMultiAsset(String policyId, List<String> assetNames) {
+        MultiAsset multiAsset = new MultiAsset();
+        multiAsset.setPolicyId(policyId);
+        for (String assetName : assetNames) {
+            multiAsset.getAssets().add(new Asset(assetName, BigInteger.ONE));
+        }
+        return multiAsset;
+    }
+
+    private BigInteger createDummyOutputAndCalculateMinAdaForTxnOutput(String address, List<MultiAsset> multiAssets, MinAdaCalculator minAdaCalculator) {
+        TransactionOutput txnOutput = new TransactionOutput();
+        txnOutput.setAddress(address);
+        txnOutput.setValue(new Value(BigInteger.ZERO, multiAssets));
+        return minAdaCalculator.calculateMinAda(txnOutput);
+    }
+}
\ No newline at end of file
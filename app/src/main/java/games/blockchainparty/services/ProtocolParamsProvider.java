@@ -0,0 +1,156 @@
+package games.blockchainparty.services;
+
+import com.bloxbean.cardano.client.backend.api.BackendService;
+import com.bloxbean.cardano.client.backend.exception.ApiException;
+import com.bloxbean.cardano.client.backend.model.EpochContent;
+import com.bloxbean.cardano.client.backend.model.ProtocolParams;
+import com.bloxbean.cardano.client.backend.model.Result;
+import com.bloxbean.cardano.client.common.MinAdaCalculator;
+import games.blockchainparty.services.model.ChainSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+/**
+ * Caches {@link ProtocolParams} per epoch.
+ * Reads never touch the network, refresh happens on the scheduler shortly before the epoch rolls over.
+ * Starts from the bootstrap snapshot when there is one, the live params are fetched by {@link ChainBootstrap}.
+ */
+@Service
+@Slf4j
+public class ProtocolParamsProvider {
+
+    private static final long REFRESH_LEAD_SECONDS = 120;
+
+    private final BackendService backendService;
+    private volatile EpochParams current;
+
+    @Autowired
+    public ProtocolParamsProvider(BackendService backendService, ChainSnapshotStore chainSnapshotStore) {
+        this.backendService = backendService;
+        chainSnapshotStore.getLoaded().filter(snapshot -> snapshot.getProtocolParams() != null).ifPresent(snapshot ->
+                current = new EpochParams(snapshot.getEpoch(), snapshot.getEpochStartTime(), snapshot.getEpochEndTime(), snapshot.getProtocolParams()));
+    }
+
+    public ProtocolParams getProtocolParams() {
+        EpochParams epochParams = active();
+        return epochParams != null ? epochParams.protocolParams : null;
+    }
+
+    public MinAdaCalculator getMinAdaCalculator() {
+        EpochParams epochParams = active();
+        return epochParams != null ? epochParams.minAdaCalculator : null;
+    }
+
+    public Integer getEpoch() {
+        EpochParams epochParams = active();
+        return epochParams != null ? epochParams.epoch : null;
+    }
+
+    /**
+     * Copy the active epoch params into a bootstrap snapshot.
+     */
+    public void exportTo(ChainSnapshot snapshot) {
+        EpochParams epochParams = active();
+        if (epochParams == null)
+            return;
+        snapshot.setEpoch(epochParams.epoch);
+        snapshot.setEpochStartTime(epochParams.startTime);
+        snapshot.setEpochEndTime(epochParams.endTime);
+        snapshot.setProtocolParams(epochParams.protocolParams);
+    }
+
+    private EpochParams active() {
+        EpochParams epochParams = current;
+        if (epochParams != null && epochParams.next != null && Instant.now().getEpochSecond() >= epochParams.endTime) {
+            return epochParams.next;
+        }
+        return epochParams;
+    }
+
+    @Scheduled(initialDelayString = "${cardano.params-refresh-check-ms:30000}", fixedDelayString = "${cardano.params-refresh-check-ms:30000}")
+    public void refreshIfDue() {
+        EpochParams epochParams = current;
+        long now = Instant.now().getEpochSecond();
+        if (epochParams == null) { //Initial fetch failed, keep trying.
+            tryRefresh();
+        } else if (now >= epochParams.endTime) { //Epoch rolled over, promote the pre-fetched params or fetch them now.
+            if (epochParams.next != null) {
+                current = epochParams.next;
+                log.info("ProtocolParams switched to epoch " + epochParams.next.epoch);
+            } else {
+                tryRefresh();
+            }
+        } else if (epochParams.next == null && now >= epochParams.endTime - REFRESH_LEAD_SECONDS) {
+            prefetchNextEpoch(epochParams);
+        }
+    }
+
+    /**
+     * Fetch the params of the current epoch, replacing any from the snapshot.
+     */
+    public void refresh() throws ApiException {
+        Result<EpochContent> epochResult = backendService.getEpochService().getLatestEpoch();
+        if (!epochResult.isSuccessful())
+            throw new ApiException("Failed to Fetch Latest Epoch: " + epochResult.getResponse());
+        EpochContent epoch = epochResult.getValue();
+        Result<ProtocolParams> protocolParamsResult = backendService.getEpochService().getProtocolParameters(epoch.getEpoch());
+        if (!protocolParamsResult.isSuccessful())
+            throw new ApiException("Failed to Fetch ProtocolParams Object: " + protocolParamsResult.getResponse());
+        current = new EpochParams(epoch.getEpoch(), epoch.getStartTime(), epoch.getEndTime(), protocolParamsResult.getValue());
+        log.info("ProtocolParams loaded for epoch " + epoch.getEpoch());
+    }
+
+    private void tryRefresh() {
+        try {
+            refresh();
+        } catch (ApiException e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    private void prefetchNextEpoch(EpochParams epochParams) {
+        int nextEpoch = epochParams.epoch + 1;
+        try {
+            Result<ProtocolParams> protocolParamsResult = backendService.getEpochService().getProtocolParameters(nextEpoch);
+            if (protocolParamsResult.isSuccessful() && protocolParamsResult.getValue() != null) {
+                long epochLength = epochParams.endTime - epochParams.startTime;
+                EpochParams next = new EpochParams(nextEpoch, epochParams.endTime, epochParams.endTime + epochLength, protocolParamsResult.getValue());
+                current = epochParams.withNext(next);
+                log.info("ProtocolParams pre-fetched for epoch " + nextEpoch);
+            }
+        } catch (ApiException e) { //Not published yet, will be fetched after the rollover.
+            log.debug(e.getMessage(), e);
+        }
+    }
+
+    private static final class EpochParams {
+
+        private final int epoch;
+        private final long startTime;
+        private final long endTime;
+        private final ProtocolParams protocolParams;
+        private final MinAdaCalculator minAdaCalculator;
+        private final EpochParams next;
+
+        private EpochParams(int epoch, long startTime, long endTime, ProtocolParams protocolParams) {
+            this(epoch, startTime, endTime, protocolParams, new MinAdaCalculator(protocolParams), null);
+        }
+
+        private EpochParams(int epoch, long startTime, long endTime, ProtocolParams protocolParams, MinAdaCalculator minAdaCalculator, EpochParams next) {
+            this.epoch = epoch;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.protocolParams = protocolParams;
+            this.minAdaCalculator = minAdaCalculator;
+            this.next = next;
+        }
+
+        private EpochParams withNext(EpochParams next) {
+            return new EpochParams(epoch, startTime, endTime, protocolParams, minAdaCalculator, next);
+        }
+    }
+}
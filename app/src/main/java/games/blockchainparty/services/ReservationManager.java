@@ -0,0 +1,163 @@
+package games.blockchainparty.services;
+
+import com.bloxbean.cardano.client.backend.exception.ApiException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Holds a number for one user from transaction build until submit, or until the transaction TTL slot has passed.
+ * Once submitted it is held until the confirmation poll releases it, or for a margin past the TTL.
+ * Slots are swapped with CAS on a {@link ConcurrentMap}, contended numbers are refused immediately.
+ */
+@Service
+@Slf4j
+public class ReservationManager {
+
+    private final SlotClock slotClock;
+    private final long expiryMarginSlots;
+    private final ConcurrentMap<Integer, Reservation> reservations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReservationManager(SlotClock slotClock, @Value("${cardano.expiry-margin-slots:600}") long expiryMarginSlots) {
+        this.slotClock = slotClock;
+        this.expiryMarginSlots = expiryMarginSlots;
+    }
+
+    /**
+     * Reserve all numbers for a transaction build, or none of them. The same user may rebuild while the reservation is held.
+     * The returned reservations are the ones this call wrote, hand them to {@link #release(Collection)} if the build fails.
+     */
+    public Optional<List<Reservation>> reserve(Collection<Integer> numbers, String userAddr) throws ApiException {
+        long currentSlot = slotClock.getCurrentSlot();
+        List<Reservation> reserved = new ArrayList<>();
+        for (Integer number : numbers) {
+            Reservation reservation = new Reservation(number, userAddr, currentSlot + MinterService.TTL_SLOTS, false);
+            if (!reserve(reservation, currentSlot)) {
+                release(reserved);
+                return Optional.empty();
+            }
+            reserved.add(reservation);
+        }
+        return Optional.of(reserved);
+    }
+
+    /**
+     * Re-establish a reservation recorded before a restart, unless the number has been taken since.
+     */
+    public void restore(Collection<Integer> numbers, String userAddr, long expirySlot, boolean submitting) {
+        numbers.forEach(number -> reservations.putIfAbsent(number, new Reservation(number, userAddr, expirySlot, submitting)));
+    }
+
+    /**
+     * Move all numbers reserved by the user to the submitting state, or none of them. Only one submit per number may be in flight.
+     * A number without a live reservation is only accepted if builtBy names the user, i.e. the build was journaled for them.
+     */
+    public boolean beginSubmit(Collection<Integer> numbers, String userAddr, Function<Integer, String> builtBy) throws ApiException {
+        long currentSlot = slotClock.getCurrentSlot();
+        List<Integer> started = new ArrayList<>();
+        for (Integer number : numbers) {
+            if (!beginSubmit(number, userAddr, builtBy, currentSlot)) {
+                abortSubmit(started, userAddr);
+                return false;
+            }
+            started.add(number);
+        }
+        return true;
+    }
+
+    /**
+     * Return the user's numbers from submitting back to built, so they can retry the submit.
+     */
+    public void abortSubmit(Collection<Integer> numbers, String userAddr) {
+        numbers.forEach(number -> reservations.computeIfPresent(number, (key, existing) ->
+                Objects.equals(existing.userAddr, userAddr) ? new Reservation(number, existing.userAddr, existing.expirySlot, false) : existing));
+    }
+
+    /**
+     * Drop exactly these reservations. A number taken over by a later build or another user since is left alone.
+     */
+    public void release(Collection<Reservation> reserved) {
+        reserved.forEach(reservation -> reservations.remove(reservation.number, reservation));
+    }
+
+    /**
+     * Drop the numbers still held by the user, once their transaction confirmed or expired.
+     */
+    public void release(Collection<Integer> numbers, String userAddr) {
+        numbers.forEach(number -> reservations.computeIfPresent(number, (key, existing) -> Objects.equals(existing.userAddr, userAddr) ? null : existing));
+    }
+
+    private boolean reserve(Reservation reservation, long currentSlot) {
+        while (true) {
+            Reservation existing = reservations.putIfAbsent(reservation.number, reservation);
+            if (existing == null)
+                return true;
+            boolean reusable = existing.isExpired(currentSlot) || (!existing.submitting && Objects.equals(existing.userAddr, reservation.userAddr));
+            if (!reusable)
+                return false;
+            if (reservations.replace(reservation.number, existing, reservation))
+                return true;
+        }
+    }
+
+    private boolean beginSubmit(int number, String userAddr, Function<Integer, String> builtBy, long currentSlot) {
+        Reservation submitting = new Reservation(number, userAddr, currentSlot + MinterService.TTL_SLOTS + expiryMarginSlots, true);
+        while (true) {
+            Reservation existing = reservations.get(number);
+            if (existing == null || existing.isExpired(currentSlot)) { //Reservation lost to a restart or expiry, the journaled build still proves ownership.
+                if (userAddr == null || !userAddr.equals(builtBy.apply(number)))
+                    return false;
+                if (existing == null ? reservations.putIfAbsent(number, submitting) == null : reservations.replace(number, existing, submitting))
+                    return true;
+                continue;
+            }
+            if (existing.submitting || !Objects.equals(existing.userAddr, userAddr))
+                return false;
+            if (reservations.replace(number, existing, new Reservation(number, existing.userAddr, Math.max(existing.expirySlot, submitting.expirySlot), true)))
+                return true;
+        }
+    }
+
+    @Scheduled(fixedDelay = 30_000)
+    public void purgeExpired() {
+        if (!slotClock.isSynced())
+            return;
+        try {
+            long currentSlot = slotClock.getCurrentSlot();
+            reservations.entrySet().removeIf(entry -> entry.getValue().isExpired(currentSlot));
+        } catch (ApiException e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    public static final class Reservation {
+
+        private final int number;
+        private final String userAddr;
+        private final long expirySlot;
+        private final boolean submitting;
+
+        private Reservation(int number, String userAddr, long expirySlot, boolean submitting) {
+            this.number = number;
+            this.userAddr = userAddr;
+            this.expirySlot = expirySlot;
+            this.submitting = submitting;
+        }
+
+        private boolean isExpired(long currentSlot) {
+            return currentSlot > expirySlot;
+        }
+    }
+}
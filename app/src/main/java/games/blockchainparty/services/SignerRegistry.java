@@ -0,0 +1,127 @@
+package games.blockchainparty.services;
+
+import com.bloxbean.cardano.client.config.Configuration;
+import com.bloxbean.cardano.client.crypto.KeyGenUtil;
+import com.bloxbean.cardano.client.crypto.SecretKey;
+import com.bloxbean.cardano.client.crypto.api.SigningProvider;
+import com.bloxbean.cardano.client.crypto.bip32.HdKeyGenerator;
+import com.bloxbean.cardano.client.crypto.bip32.HdKeyPair;
+import com.bloxbean.cardano.client.transaction.TransactionSigner;
+import com.bloxbean.cardano.client.transaction.spec.Transaction;
+import games.blockchainparty.services.cbor.CborReader;
+import games.blockchainparty.services.cbor.CborWriter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Derives every signing key once at startup, so signing never goes through the BIP39/BIP32 derivation on a request.
+ * Derivation runs in the background while the rest of the application starts, signing waits for it.
+ */
+@Service
+@Slf4j
+public class SignerRegistry {
+
+    private final CompletableFuture<SignerKeys> keys;
+
+    @Autowired
+    public SignerRegistry(ConfigService configService) {
+        keys = CompletableFuture.supplyAsync(() -> derive(configService));
+    }
+
+    public HdKeyPair getAccountKeyPair() {
+        return keys.join().accountKeyPair;
+    }
+
+    public SecretKey getPolicyKey() {
+        return keys.join().policyKey;
+    }
+
+    public boolean isReady() {
+        return keys.isDone() && !keys.isCompletedExceptionally();
+    }
+
+    /**
+     * Loading or deriving the keys failed, signing will never work without a restart.
+     */
+    public boolean isFailed() {
+        return keys.isCompletedExceptionally();
+    }
+
+    /**
+     * Add the server witnesses (policy key + server account) to a transaction.
+     */
+    public Transaction signAsServer(Transaction transaction) {
+        SignerKeys signerKeys = keys.join();
+        if (signerKeys.policyKey != null) {
+            transaction = TransactionSigner.INSTANCE.sign(transaction, signerKeys.policyKey);
+        }
+        return TransactionSigner.INSTANCE.sign(transaction, signerKeys.accountKeyPair);
+    }
+
+    /**
+     * Encoded server vkey witnesses ([vkey, signature]) over a transaction body hash, same keys and order as {@link #signAsServer}.
+     */
+    public List<byte[]> vkeyWitnesses(byte[] bodyHash) {
+        SignerKeys signerKeys = keys.join();
+        SecretKey policyKey = signerKeys.policyKey;
+        SigningProvider signingProvider = Configuration.INSTANCE.getSigningProvider();
+        List<byte[]> witnesses = new ArrayList<>(2);
+        if (policyKey != null) {
+            byte[] signature = isExtended(policyKey)
+                    ? signingProvider.signExtended(bodyHash, policyKey.getBytes(), signerKeys.policyVerificationKey)
+                    : signingProvider.sign(bodyHash, policyKey.getBytes());
+            witnesses.add(vkeyWitness(signerKeys.policyVerificationKey, signature));
+        }
+        HdKeyPair accountKeyPair = signerKeys.accountKeyPair;
+        byte[] accountPublicKey = accountKeyPair.getPublicKey().getKeyData();
+        witnesses.add(vkeyWitness(accountPublicKey, signingProvider.signExtended(bodyHash, accountKeyPair.getPrivateKey().getKeyData(), accountPublicKey)));
+        return witnesses;
+    }
+
+    @SneakyThrows
+    private static SignerKeys derive(ConfigService configService) {
+        HdKeyPair accountKeyPair = configService.getAccount().hdKeyPair();
+        SecretKey policyKey = configService.getPolicy().getPolicyKeys() != null ? configService.getPolicy().getPolicyKeys().getSkey() : null;
+        byte[] policyVerificationKey;
+        if (policyKey == null) {
+            policyVerificationKey = null;
+        } else if (isExtended(policyKey)) {
+            policyVerificationKey = HdKeyGenerator.getPublicKey(policyKey.getBytes());
+        } else {
+            policyVerificationKey = KeyGenUtil.getPublicKeyFromPrivateKey(policyKey).getBytes();
+        }
+        log.info("Signer keys derived");
+        return new SignerKeys(accountKeyPair, policyKey, policyVerificationKey);
+    }
+
+    private static byte[] vkeyWitness(byte[] verificationKey, byte[] signature) {
+        return new CborWriter(4 + verificationKey.length + signature.length)
+                .writeHeader(CborReader.MAJOR_ARRAY, 2)
+                .writeBytes(verificationKey)
+                .writeBytes(signature)
+                .toByteArray();
+    }
+
+    private static boolean isExtended(SecretKey secretKey) {
+        return secretKey.getBytes().length == 64;
+    }
+
+    private static final class SignerKeys {
+
+        private final HdKeyPair accountKeyPair;
+        private final SecretKey policyKey;
+        private final byte[] policyVerificationKey;
+
+        private SignerKeys(HdKeyPair accountKeyPair, SecretKey policyKey, byte[] policyVerificationKey) {
+            this.accountKeyPair = accountKeyPair;
+            this.policyKey = policyKey;
+            this.policyVerificationKey = policyVerificationKey;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package games.blockchainparty.services;
+
+import com.bloxbean.cardano.client.backend.api.BackendService;
+import com.bloxbean.cardano.client.backend.exception.ApiException;
+import com.bloxbean.cardano.client.backend.model.Block;
+import com.bloxbean.cardano.client.backend.model.Genesis;
+import com.bloxbean.cardano.client.backend.model.Result;
+import games.blockchainparty.services.model.ChainSnapshot;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Computes the current slot locally from the genesis slot length and a periodically resynced block anchor.
+ * Starts from the bootstrap snapshot when there is one, the live genesis and anchor are fetched by {@link ChainBootstrap}.
+ */
+@Service
+@Slf4j
+public class SlotClock {
+
+    private static final long DRIFT_WARN_SLOTS = 30;
+
+    private final BackendService backendService;
+    private volatile Genesis genesis;
+    private volatile long slotLengthMillis;
+    private volatile SlotAnchor anchor;
+    private volatile long driftSlots;
+
+    @Autowired
+    public SlotClock(BackendService backendService, ChainSnapshotStore chainSnapshotStore, MeterRegistry meterRegistry) {
+        this.backendService = backendService;
+        Gauge.builder("slot.clock.drift", this, SlotClock::getDriftSlots).baseUnit("slots").register(meterRegistry);
+        chainSnapshotStore.getLoaded().filter(snapshot -> snapshot.getGenesis() != null).ifPresent(snapshot -> {
+            setGenesis(snapshot.getGenesis());
+            anchor = new SlotAnchor(snapshot.getAnchorSlot(), snapshot.getAnchorTimeMillis());
+        });
+    }
+
+    public Genesis getGenesis() {
+        return genesis;
+    }
+
+    public long getCurrentSlot() throws ApiException {
+        SlotAnchor slotAnchor = anchor;
+        if (slotAnchor == null) { //No snapshot and never synced, try once inline.
+            slotAnchor = sync();
+        }
+        return slotAnchor.slotAt(System.currentTimeMillis(), slotLengthMillis);
+    }
+
+    /**
+     * Fetch genesis if it only came from the snapshot, then resync the anchor.
+     */
+    public void refresh() throws ApiException {
+        fetchGenesis();
+        sync();
+    }
+
+    /**
+     * Copy genesis and anchor into a bootstrap snapshot.
+     */
+    public void exportTo(ChainSnapshot snapshot) {
+        SlotAnchor slotAnchor = anchor;
+        snapshot.setGenesis(genesis);
+        if (slotAnchor != null) {
+            snapshot.setAnchorSlot(slotAnchor.slot);
+            snapshot.setAnchorTimeMillis(slotAnchor.timeMillis);
+        }
+    }
+
+    /**
+     * Difference between the locally predicted slot and the chain tip at the last resync, in slots.
+     */
+    public long getDriftSlots() {
+        return driftSlots;
+    }
+
+    public boolean isSynced() {
+        return anchor != null;
+    }
+
+    @Scheduled(initialDelayString = "${cardano.slot-resync-ms:300000}", fixedDelayString = "${cardano.slot-resync-ms:300000}")
+    public void resync() {
+        try {
+            sync();
+        } catch (ApiException e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    private void fetchGenesis() throws ApiException {
+        Result<Genesis> genesisResult = backendService.getNetworkInfoService().getNetworkInfo();
+        if (!genesisResult.isSuccessful())
+            throw new ApiException("Unable to fetch genesis, reason: " + genesisResult.getResponse());
+        setGenesis(genesisResult.getValue());
+        log.info("Network Magic: " + genesis.getNetworkMagic());
+    }
+
+    private void setGenesis(Genesis genesis) {
+        this.slotLengthMillis = genesis.getSlotLength() * 1000L;
+        this.genesis = genesis;
+    }
+
+    private SlotAnchor sync() throws ApiException {
+        if (genesis == null) {
+            fetchGenesis();
+        }
+        Result<Block> blockResult = backendService.getBlockService().getLastestBlock();
+        if (!blockResult.isSuccessful()) {
+            throw new ApiException("Unable to fetch latest block for slot sync, reason: " + blockResult.getResponse());
+        }
+        Block block = blockResult.getValue();
+        SlotAnchor previous = anchor;
+        SlotAnchor current = new SlotAnchor(block.getSlot(), block.getTime() * 1000L);
+        if (previous != null) {
+            driftSlots = previous.slotAt(current.timeMillis, slotLengthMillis) - current.slot;
+            if (Math.abs(driftSlots) > DRIFT_WARN_SLOTS) {
+                log.warn("Slot clock drifted by " + driftSlots + " slots");
+            }
+        }
+        anchor = current;
+        return current;
+    }
+
+    private static final class SlotAnchor {
+
+        private final long slot;
+        private final long timeMillis;
+
+        private SlotAnchor(long slot, long timeMillis) {
+            this.slot = slot;
+            this.timeMillis = timeMillis;
+        }
+
+        private long slotAt(long nowMillis, long slotLengthMillis) {
+            return slot + (nowMillis - timeMillis) / slotLengthMillis;
+        }
+    }
+}
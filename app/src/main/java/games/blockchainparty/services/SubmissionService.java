@@ -0,0 +1,389 @@
+package games.blockchainparty.services;
+
+import com.bloxbean.cardano.client.backend.exception.ApiException;
+import com.bloxbean.cardano.client.backend.model.Result;
+import com.bloxbean.cardano.client.transaction.spec.TransactionInput;
+import com.bloxbean.cardano.client.util.HexUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import games.blockchainparty.services.model.SignedTransaction;
+import games.blockchainparty.services.model.Submission;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Submits signed transactions in the background with exponential-backoff retry, then polls until they are confirmed or past their TTL.
+ * Every state change of the mint flow, from built to confirmed, is recorded in a {@link Journal} under data/.
+ * Pending submissions and build reservations are resumed on startup.
+ */
+@Service
+@Slf4j
+public class SubmissionService {
+
+    private static final String JOURNAL_FILE = "mint.journal";
+    private static final String LEGACY_LOG_FILE = "submissions.log";
+    private static final int COMPACT_AFTER = 10_000;
+    private static final int MAX_ATTEMPTS = 6;
+    private static final long BASE_BACKOFF_MILLIS = 1_000;
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MinterService minterService;
+    private final MintedRegistry mintedRegistry;
+    private final ReservationManager reservationManager;
+    private final SlotClock slotClock;
+    private final UtxoIndex utxoIndex;
+    private final UtxoLeaseManager utxoLeaseManager;
+    private final BuiltTransactionCache builtTransactionCache;
+    private final FilesService filesService;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Submission> submissions = new ConcurrentHashMap<>();
+    private final Map<Integer, Submission> builtByNumber = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor workers;
+    private final ReadWriteLock compactionLock = new ReentrantReadWriteLock();
+    private final AtomicInteger journalEntries = new AtomicInteger();
+    private final long expiryMarginSlots;
+    private Journal journal;
+
+    @Autowired
+    public SubmissionService(MinterService minterService, MintedRegistry mintedRegistry, ReservationManager reservationManager, SlotClock slotClock,
+                             UtxoIndex utxoIndex, UtxoLeaseManager utxoLeaseManager, BuiltTransactionCache builtTransactionCache, FilesService filesService, MeterRegistry meterRegistry, @Value("${cardano.submit-workers:4}") int submitWorkers,
+                             @Value("${cardano.expiry-margin-slots:600}") long expiryMarginSlots) {
+        this.minterService = minterService;
+        this.mintedRegistry = mintedRegistry;
+        this.reservationManager = reservationManager;
+        this.slotClock = slotClock;
+        this.utxoIndex = utxoIndex;
+        this.utxoLeaseManager = utxoLeaseManager;
+        this.builtTransactionCache = builtTransactionCache;
+        this.filesService = filesService;
+        this.meterRegistry = meterRegistry;
+        this.expiryMarginSlots = expiryMarginSlots;
+        Gauge.builder("submissions.pending", submissions, pending -> pending.values().stream().filter(submission -> !submission.getState().isFinal()).count())
+                .register(meterRegistry);
+        this.workers = new ScheduledThreadPoolExecutor(submitWorkers, runnable -> {
+            Thread thread = new Thread(runnable, "submit-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not initialize mint journal!", e);
+        }
+    }
+
+    /**
+     * Record that a transaction for the numbers was handed to the user, so the reservation and the build survive a restart.
+     */
+    public void recordBuilt(String userAddr, List<Integer> numbers, String txId) {
+        Submission built = new Submission();
+        built.setTrackingId(UUID.randomUUID().toString());
+        built.setTxId(txId);
+        built.setNumbers(new ArrayList<>(numbers));
+        built.setAddress(userAddr);
+        built.setState(Submission.State.BUILT);
+        try {
+            built.setTtl(slotClock.getCurrentSlot() + MinterService.TTL_SLOTS);
+            persist(built);
+        } catch (ApiException e) { //The reservation itself was taken with the same clock, this only happens if it went away since
+            log.warn("Build of " + numbers + " not journaled: " + e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Queue a signed transaction for submission.
+     * @return the tracking id
+     */
+    public String enqueue(List<Integer> numbers, SignedTransaction transaction) {
+        Submission submission = new Submission();
+        submission.setTrackingId(UUID.randomUUID().toString());
+        submission.setNumbers(new ArrayList<>(numbers));
+        submission.setTransaction(HexUtil.encodeHexString(transaction.getBytes()));
+        submission.setTxId(transaction.getTxId());
+        submission.setAddress(transaction.getChangeAddress());
+        submission.setInputs(transaction.getInputs().stream().map(UtxoLeaseManager::ref).collect(Collectors.toList()));
+        submission.setTtl(transaction.getTtl());
+        submission.setState(Submission.State.QUEUED);
+        try {
+            persist(submission);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        //Inputs are locked by the queued transaction, keep them out of new selections until it is confirmed or dead.
+        utxoLeaseManager.hold(submission.getTrackingId(), submission.getInputs(), submission.getTtl() + expiryMarginSlots);
+        utxoIndex.markSpent(transaction.getChangeAddress(), transaction.getInputs());
+        workers.execute(() -> submit(submission));
+        return submission.getTrackingId();
+    }
+
+    /**
+     * Move the numbers to submitting for the user whose transaction this is, see {@link ReservationManager#beginSubmit}.
+     */
+    public boolean beginSubmit(List<Integer> numbers, String userAddr) throws ApiException {
+        return reservationManager.beginSubmit(numbers, userAddr, this::builtBy);
+    }
+
+    /**
+     * Address a transaction for the number was journaled as built for, or null.
+     */
+    private String builtBy(Integer number) {
+        Submission built = builtByNumber.get(number);
+        return built != null ? built.getAddress() : null;
+    }
+
+    public Optional<Submission> get(String trackingId) {
+        return Optional.ofNullable(submissions.get(trackingId));
+    }
+
+    private void submit(Submission submission) {
+        submission.setAttempts(submission.getAttempts() + 1);
+        boolean retryable;
+        String reason;
+        try {
+            Result<String> result = minterService.submitTransaction(HexUtil.decodeHexString(submission.getTransaction()));
+            if (result.isSuccessful()) {
+                submission.setTxId(result.getValue());
+                submission.setState(Submission.State.SUBMITTED);
+                update(submission);
+                log.info("Submitted " + submission.getTrackingId() + " as " + result.getValue());
+                return;
+            }
+            retryable = result.code() == 429 || result.code() >= 500;
+            if (result.code() >= 500) {
+                submission.setMaybeSent(true);
+            }
+            reason = result.getResponse();
+        } catch (ApiException e) {
+            retryable = true;
+            submission.setMaybeSent(true);
+            reason = e.getMessage();
+        }
+
+        if (retryable && submission.getAttempts() < MAX_ATTEMPTS) {
+            long delay = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << (submission.getAttempts() - 1));
+            log.warn("Submit of " + submission.getTrackingId() + " failed (" + reason + "), retry in " + delay + "ms");
+            update(submission);
+            workers.schedule(() -> submit(submission), delay, TimeUnit.MILLISECONDS);
+        } else if (mayBeOnChain(submission)) {
+            log.warn("Submit of " + submission.getTrackingId() + " failed (" + reason + ") but " + submission.getTxId() + " may be on chain, tracking it until its TTL");
+            submission.setState(Submission.State.SUBMITTED);
+            update(submission);
+        } else {
+            log.error("Submit of " + submission.getTrackingId() + " failed: " + reason);
+            submission.setState(Submission.State.FAILED);
+            update(submission);
+            reservationManager.abortSubmit(submission.getNumbers(), submission.getAddress());
+            releaseInputs(submission);
+        }
+    }
+
+    /**
+     * A rejection is final only if the chain does not know the transaction and no earlier attempt could have delivered it.
+     * Otherwise (e.g. a resend rejected as spending spent inputs) the confirmation poll decides, releasing the numbers only once the TTL has passed.
+     */
+    private boolean mayBeOnChain(Submission submission) {
+        try {
+            return minterService.isConfirmed(submission.getTxId()) || submission.isMaybeSent();
+        } catch (ApiException e) {
+            log.warn("Could not look up " + submission.getTxId() + ": " + e.getMessage());
+            return true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cardano.confirmation-poll-ms:20000}")
+    public void pollConfirmations() {
+        for (Submission submission : submissions.values()) {
+            if (submission.getState() != Submission.State.SUBMITTED)
+                continue;
+            try {
+                if (minterService.isConfirmed(submission.getTxId())) {
+                    confirm(submission);
+                } else if (slotClock.getCurrentSlot() > submission.getTtl() + expiryMarginSlots) {
+                    //Past the TTL plus a margin for a lagging backend, ask once more right before giving the numbers back.
+                    if (minterService.isConfirmed(submission.getTxId())) {
+                        confirm(submission);
+                    } else {
+                        submission.setState(Submission.State.EXPIRED);
+                        update(submission);
+                        reservationManager.release(submission.getNumbers(), submission.getAddress());
+                        releaseInputs(submission);
+                    }
+                }
+            } catch (ApiException e) {
+                log.warn("Confirmation check failed for " + submission.getTxId() + ": " + e.getMessage());
+            } catch (RuntimeException e) { //One bad submission must not stop the others from confirming
+                log.error("Confirmation of " + submission.getTxId() + " failed", e);
+            }
+        }
+        submissions.values().removeIf(submission -> submission.getState().isFinal() && System.currentTimeMillis() - submission.getUpdatedAt() > TimeUnit.HOURS.toMillis(1));
+        if (journalEntries.get() >= COMPACT_AFTER) {
+            compact();
+        }
+    }
+
+    private void confirm(Submission submission) {
+        mintedRegistry.markMinted(submission.getNumbers(), submission.getTxId());
+        submission.setState(Submission.State.CONFIRMED);
+        update(submission);
+        reservationManager.release(submission.getNumbers(), submission.getAddress());
+        releaseInputs(submission);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        workers.shutdown();
+        journal.close();
+    }
+
+    /**
+     * Free the inputs of a confirmed or dead transaction. A confirmed one spent them, a dead one hands them back to selection.
+     */
+    private void releaseInputs(Submission submission) {
+        if (submission.getInputs() == null)
+            return;
+        if (submission.getAddress() != null) {
+            List<TransactionInput> inputs = submission.getInputs().stream().map(SubmissionService::input).collect(Collectors.toList());
+            if (submission.getState() == Submission.State.CONFIRMED) {
+                utxoIndex.markConfirmed(submission.getAddress(), inputs);
+            } else {
+                utxoIndex.markUnspent(submission.getAddress(), inputs);
+            }
+        }
+        utxoLeaseManager.release(submission.getInputs());
+    }
+
+    private static TransactionInput input(String ref) {
+        int separator = ref.lastIndexOf('#');
+        return new TransactionInput(ref.substring(0, separator), Integer.parseInt(ref.substring(separator + 1)));
+    }
+
+    private void update(Submission submission) {
+        try {
+            persist(submission);
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Append the record and wait until it is on disk.
+     */
+    private void persist(Submission submission) throws IOException {
+        submission.setUpdatedAt(System.currentTimeMillis());
+        byte[] record = objectMapper.writeValueAsBytes(submission);
+        compactionLock.readLock().lock();
+        try {
+            journal.appendDurably(record);
+            apply(submission);
+            journalEntries.incrementAndGet();
+            meterRegistry.counter("submissions.transitions", "state", submission.getState().name()).increment();
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+    }
+
+    private void apply(Submission submission) {
+        if (submission.getState() == Submission.State.BUILT) {
+            submission.getNumbers().forEach(number -> builtByNumber.put(number, submission));
+        } else {
+            submission.getNumbers().forEach(builtByNumber::remove);
+            submissions.put(submission.getTrackingId(), submission);
+        }
+    }
+
+    /**
+     * Rewrite the journal down to pending submissions and builds that have not expired.
+     */
+    private void compact() {
+        compactionLock.writeLock().lock();
+        try {
+            if (slotClock.isSynced()) {
+                long currentSlot = slotClock.getCurrentSlot();
+                builtByNumber.values().removeIf(built -> currentSlot > built.getTtl());
+            }
+            Set<Submission> live = new LinkedHashSet<>();
+            submissions.values().stream().filter(submission -> !submission.getState().isFinal()).forEach(live::add);
+            live.addAll(builtByNumber.values());
+            List<byte[]> records = new ArrayList<>(live.size());
+            for (Submission submission : live) {
+                records.add(objectMapper.writeValueAsBytes(submission));
+            }
+            journal.rewrite(records);
+            journalEntries.set(records.size());
+        } catch (IOException | ApiException e) {
+            log.error("Mint journal compaction failed", e);
+        } finally {
+            compactionLock.writeLock().unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+        journal = filesService.openJournal(JOURNAL_FILE, record -> {
+            try {
+                apply(objectMapper.readValue(record, Submission.class));
+                journalEntries.incrementAndGet();
+            } catch (IOException e) {
+                log.warn("Skipping unreadable mint journal record");
+            }
+        });
+        Path legacyLog = filesService.resolve(LEGACY_LOG_FILE);
+        if (Files.exists(legacyLog)) {
+            for (String line : Files.readAllLines(legacyLog, StandardCharsets.UTF_8)) {
+                try {
+                    apply(objectMapper.readValue(line, Submission.class));
+                } catch (IOException e) { //Torn write at the tail
+                    log.warn("Skipping malformed submission log entry");
+                }
+            }
+        }
+        submissions.values().removeIf(submission -> submission.getState().isFinal());
+        journalEntries.set(COMPACT_AFTER);
+        compact();
+        Files.deleteIfExists(legacyLog);
+
+        for (Submission submission : submissions.values()) {
+            reservationManager.restore(submission.getNumbers(), submission.getAddress(), submission.getTtl() + expiryMarginSlots, true);
+            if (submission.getInputs() != null) {
+                utxoLeaseManager.hold(submission.getTrackingId(), submission.getInputs(), submission.getTtl() + expiryMarginSlots);
+            }
+            if (submission.getTxId() == null) { //Journaled before transaction hashes were recorded at enqueue
+                submission.setTxId(SignedTransaction.txId(HexUtil.decodeHexString(submission.getTransaction())));
+            }
+            if (submission.getState() == Submission.State.QUEUED) {
+                submission.setMaybeSent(true); //The attempt before the restart may have gone out
+                workers.execute(() -> submit(submission));
+            }
+        }
+        builtByNumber.values().stream().distinct().forEach(built -> {
+            reservationManager.restore(built.getNumbers(), built.getAddress(), built.getTtl(), false);
+            if (built.getTxId() != null) {
+                builtTransactionCache.restore(built.getTxId(), built.getNumbers(), built.getAddress(), built.getTtl());
+            }
+        });
+        if (!submissions.isEmpty()) {
+            log.info("Resumed " + submissions.size() + " pending submissions");
+        }
+    }
+}
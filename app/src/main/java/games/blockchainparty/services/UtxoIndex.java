@@ -0,0 +1,262 @@
+package games.blockchainparty.services;
+
+import com.bloxbean.cardano.client.backend.api.AddressService;
+import com.bloxbean.cardano.client.backend.api.BackendService;
+import com.bloxbean.cardano.client.backend.api.UtxoService;
+import com.bloxbean.cardano.client.backend.common.OrderEnum;
+import com.bloxbean.cardano.client.backend.exception.ApiException;
+import com.bloxbean.cardano.client.backend.model.AddressContent;
+import com.bloxbean.cardano.client.backend.model.Amount;
+import com.bloxbean.cardano.client.backend.model.Result;
+import com.bloxbean.cardano.client.backend.model.TxContentOutputAmount;
+import com.bloxbean.cardano.client.backend.model.Utxo;
+import com.bloxbean.cardano.client.transaction.spec.TransactionInput;
+import games.blockchainparty.services.backend.Results;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.util.*;
+
+import static com.bloxbean.cardano.client.common.CardanoConstants.LOVELACE;
+
+/**
+ * In-memory UTXO set per address, served through the {@link UtxoService} interface so selection strategies never page Blockfrost.
+ * Entries are refreshed incrementally (newest first, until a known UTXO is seen), fully resynced periodically and evicted by LRU / idle TTL.
+ * An incremental refresh only sees new UTXOs. On the full resync cadence it is checked against the address balance instead, less the inputs of
+ * our own transactions still pending, and only falls back to a full listing when UTXOs were spent outside this server.
+ */
+@Service
+@Slf4j
+public class UtxoIndex implements UtxoService {
+
+    private static final int FETCH_SIZE = 100;
+    private static final int MAX_ADDRESSES = 10_000;
+    private static final long REFRESH_TTL_MILLIS = 20_000;
+    private static final long FULL_RESYNC_MILLIS = 300_000;
+    private static final long IDLE_EVICT_MILLIS = 600_000;
+
+    private final UtxoService utxoService;
+    private final AddressService addressService;
+    private final Map<String, AddressUtxos> entries = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AddressUtxos> eldest) {
+            return size() > MAX_ADDRESSES;
+        }
+    });
+
+    @Autowired
+    public UtxoIndex(BackendService backendService) {
+        this.utxoService = backendService.getUtxoService();
+        this.addressService = backendService.getAddressService();
+    }
+
+    public List<Utxo> getUtxos(String address) throws ApiException {
+        AddressUtxos addressUtxos = entries.computeIfAbsent(address, AddressUtxos::new);
+        addressUtxos.lastAccess = System.currentTimeMillis();
+        synchronized (addressUtxos) {
+            long now = System.currentTimeMillis();
+            if (addressUtxos.utxos == null) {
+                fullSync(addressUtxos);
+            } else if (now - addressUtxos.checkedAt > FULL_RESYNC_MILLIS) {
+                incrementalSync(addressUtxos, true);
+            } else if (now - addressUtxos.refreshedAt > REFRESH_TTL_MILLIS) {
+                incrementalSync(addressUtxos, false);
+            }
+            return addressUtxos.utxos;
+        }
+    }
+
+    @Override
+    public Result<List<Utxo>> getUtxos(String address, int count, int page) throws ApiException {
+        return getUtxos(address, count, page, OrderEnum.asc);
+    }
+
+    @Override
+    public Result<List<Utxo>> getUtxos(String address, int count, int page, OrderEnum order) throws ApiException {
+        List<Utxo> utxos = getUtxos(address);
+        int from = Math.max(page - 1, 0) * count;
+        List<Utxo> pageData = new ArrayList<>();
+        for (int i = from; i < from + count && i < utxos.size(); i++) {
+            pageData.add(order == OrderEnum.desc ? utxos.get(utxos.size() - 1 - i) : utxos.get(i));
+        }
+        return Results.success(pageData);
+    }
+
+    /**
+     * Drop UTXOs consumed by a submitted transaction so they are not selected again. They stay on chain until it confirms, the balance check counts them
+     * as pending.
+     */
+    public void markSpent(String address, Collection<TransactionInput> inputs) {
+        AddressUtxos addressUtxos = entries.get(address);
+        if (addressUtxos == null)
+            return;
+        synchronized (addressUtxos) {
+            if (addressUtxos.utxos == null)
+                return;
+            List<Utxo> remaining = new ArrayList<>(addressUtxos.utxos);
+            for (Iterator<Utxo> iterator = remaining.iterator(); iterator.hasNext(); ) {
+                Utxo utxo = iterator.next();
+                if (isInput(utxo, inputs)) {
+                    iterator.remove();
+                    addressUtxos.pendingSpends.add(utxo);
+                }
+            }
+            addressUtxos.utxos = Collections.unmodifiableList(remaining);
+        }
+    }
+
+    /**
+     * The transaction spending the inputs confirmed, they are gone on chain too. Dropped again in case a resync brought them back meanwhile.
+     */
+    public void markConfirmed(String address, Collection<TransactionInput> inputs) {
+        markSpent(address, inputs);
+        AddressUtxos addressUtxos = entries.get(address);
+        if (addressUtxos == null)
+            return;
+        synchronized (addressUtxos) {
+            addressUtxos.pendingSpends.removeIf(utxo -> isInput(utxo, inputs));
+        }
+    }
+
+    /**
+     * The transaction spending the inputs is dead, hand them back to selection.
+     */
+    public void markUnspent(String address, Collection<TransactionInput> inputs) {
+        AddressUtxos addressUtxos = entries.get(address);
+        if (addressUtxos == null)
+            return;
+        synchronized (addressUtxos) {
+            if (addressUtxos.utxos == null)
+                return;
+            List<Utxo> utxos = new ArrayList<>(addressUtxos.utxos);
+            for (Iterator<Utxo> iterator = addressUtxos.pendingSpends.iterator(); iterator.hasNext(); ) {
+                Utxo utxo = iterator.next();
+                if (isInput(utxo, inputs)) {
+                    iterator.remove();
+                    utxos.add(utxo);
+                }
+            }
+            addressUtxos.utxos = Collections.unmodifiableList(utxos);
+        }
+    }
+
+    public void evict(String address) {
+        entries.remove(address);
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            entries.values().removeIf(addressUtxos -> now - addressUtxos.lastAccess > IDLE_EVICT_MILLIS);
+        }
+    }
+
+    private void fullSync(AddressUtxos addressUtxos) throws ApiException {
+        List<Utxo> utxos = new ArrayList<>();
+        int page = 1;
+        while (true) {
+            List<Utxo> pageData = fetchPage(addressUtxos.address, page++, OrderEnum.asc);
+            utxos.addAll(pageData);
+            if (pageData.size() < FETCH_SIZE)
+                break;
+        }
+        long now = System.currentTimeMillis();
+        //Pending spends still on chain are listed again, their leases keep them out of selection.
+        addressUtxos.pendingSpends.clear();
+        addressUtxos.utxos = Collections.unmodifiableList(utxos);
+        addressUtxos.checkedAt = now;
+        addressUtxos.refreshedAt = now;
+    }
+
+    private void incrementalSync(AddressUtxos addressUtxos, boolean checkBalance) throws ApiException {
+        Set<Utxo> known = new HashSet<>(addressUtxos.utxos);
+        known.addAll(addressUtxos.pendingSpends);
+        List<Utxo> added = new ArrayList<>();
+        int page = 1;
+        boolean reachedKnown = false;
+        while (!reachedKnown) {
+            List<Utxo> pageData = fetchPage(addressUtxos.address, page++, OrderEnum.desc);
+            for (Utxo utxo : pageData) {
+                if (known.contains(utxo)) {
+                    reachedKnown = true;
+                    break;
+                }
+                added.add(utxo);
+            }
+            if (pageData.size() < FETCH_SIZE)
+                break;
+        }
+        List<Utxo> utxos = new ArrayList<>(addressUtxos.utxos);
+        Collections.reverse(added);
+        utxos.addAll(added);
+        long now = System.currentTimeMillis();
+        if (checkBalance) {
+            BigInteger pending = lovelace(addressUtxos.pendingSpends);
+            if (!lovelace(utxos).equals(balance(addressUtxos.address).subtract(pending))) { //Spent elsewhere, only a full listing tells which.
+                fullSync(addressUtxos);
+                return;
+            }
+            addressUtxos.checkedAt = now;
+        }
+        addressUtxos.utxos = Collections.unmodifiableList(utxos);
+        addressUtxos.refreshedAt = now;
+    }
+
+    /**
+     * Lovelace at the address on chain, an address never used has none.
+     */
+    private BigInteger balance(String address) throws ApiException {
+        Result<AddressContent> result = addressService.getAddressInfo(address);
+        if (result.code() == 404)
+            return BigInteger.ZERO;
+        if (!result.isSuccessful() || result.getValue() == null)
+            throw new ApiException(String.format("Unable to fetch balance for address : %s, reason: %s", address, result.getResponse()));
+        List<TxContentOutputAmount> amounts = result.getValue().getAmount();
+        return amounts == null ? BigInteger.ZERO : amounts.stream()
+                .filter(amount -> LOVELACE.equals(amount.getUnit()))
+                .map(amount -> new BigInteger(amount.getQuantity()))
+                .reduce(BigInteger.ZERO, BigInteger::add);
+    }
+
+    private static boolean isInput(Utxo utxo, Collection<TransactionInput> inputs) {
+        return inputs.stream().anyMatch(input -> input.getIndex() == utxo.getOutputIndex() && input.getTransactionId().equals(utxo.getTxHash()));
+    }
+
+    private static BigInteger lovelace(Collection<Utxo> utxos) {
+        BigInteger lovelace = BigInteger.ZERO;
+        for (Utxo utxo : utxos) {
+            for (Amount amount : utxo.getAmount()) {
+                if (LOVELACE.equals(amount.getUnit())) {
+                    lovelace = lovelace.add(amount.getQuantity());
+                }
+            }
+        }
+        return lovelace;
+    }
+
+    private List<Utxo> fetchPage(String address, int page, OrderEnum order) throws ApiException {
+        Result<List<Utxo>> result = utxoService.getUtxos(address, FETCH_SIZE, page, order);
+        if (!result.isSuccessful()) {
+            throw new ApiException(String.format("Unable to fetch Utxos for address : %s, reason: %s", address, result.getResponse()));
+        }
+        return result.getValue() != null ? result.getValue() : Collections.emptyList();
+    }
+
+    private static final class AddressUtxos {
+
+        private final String address;
+        private volatile List<Utxo> utxos;
+        private volatile long refreshedAt;
+        private volatile long checkedAt;
+        private final Set<Utxo> pendingSpends = new HashSet<>();
+        private volatile long lastAccess;
+
+        private AddressUtxos(String address) {
+            this.address = address;
+        }
+    }
+}
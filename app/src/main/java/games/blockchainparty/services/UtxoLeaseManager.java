@@ -0,0 +1,181 @@
+package games.blockchainparty.services;
+
+import com.bloxbean.cardano.client.backend.exception.ApiException;
+import com.bloxbean.cardano.client.backend.model.Utxo;
+import com.bloxbean.cardano.client.transaction.spec.TransactionInput;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Leases UTXOs (tx hash#output index) to the transaction spending them, from build until confirmation, failure or the transaction TTL slot,
+ * so concurrent builds for one address never select the same inputs. Leases are swapped with CAS on a {@link ConcurrentMap}, like reservations.
+ */
+@Service
+@Slf4j
+public class UtxoLeaseManager {
+
+    private final SlotClock slotClock;
+    private final ConcurrentMap<String, Lease> leases = new ConcurrentHashMap<>();
+    private final Counter conflicts;
+
+    @Autowired
+    public UtxoLeaseManager(SlotClock slotClock, MeterRegistry meterRegistry) {
+        this.slotClock = slotClock;
+        this.conflicts = meterRegistry.counter("utxo.lease.conflicts");
+        Gauge.builder("utxo.leases", leases, ConcurrentMap::size).register(meterRegistry);
+    }
+
+    public static String ref(String txHash, int outputIndex) {
+        return txHash + "#" + outputIndex;
+    }
+
+    public static String ref(TransactionInput input) {
+        return ref(input.getTransactionId(), input.getIndex());
+    }
+
+    /**
+     * Read-only view of the UTXOs leased to anyone but the holder, as an exclusion set for coin selection. Membership is by tx hash and output index.
+     */
+    public Set<Utxo> leasedByOthers(String holder) throws ApiException {
+        return new LeasedSet(holder, slotClock.getCurrentSlot());
+    }
+
+    /**
+     * Lease all UTXOs to the holder until the expiry slot, or none of them if another holder got one first.
+     * The holder's own leases are renewed, so rebuilding the same transaction may reuse its inputs.
+     */
+    public boolean lease(String holder, Collection<Utxo> utxos, long expirySlot) throws ApiException {
+        long currentSlot = slotClock.getCurrentSlot();
+        List<String> leased = new ArrayList<>();
+        for (Utxo utxo : utxos) {
+            String ref = ref(utxo.getTxHash(), utxo.getOutputIndex());
+            if (!lease(ref, new Lease(holder, utxo, expirySlot), currentSlot)) {
+                conflicts.increment();
+                release(holder, leased);
+                return false;
+            }
+            leased.add(ref);
+        }
+        return true;
+    }
+
+    /**
+     * Hand the inputs of a queued transaction to it unconditionally, it is going to the chain whoever held them.
+     * A ref that was not leased before, e.g. after a restart, is held as a UTXO with only tx hash and output index.
+     */
+    public void hold(String holder, Collection<String> refs, long expirySlot) {
+        refs.forEach(ref -> leases.compute(ref, (key, existing) -> new Lease(holder, existing != null ? existing.utxo : utxo(ref), expirySlot)));
+    }
+
+    /**
+     * Drop the holder's leases on the refs, leaving any that moved to another holder.
+     */
+    public void release(String holder, Collection<String> refs) {
+        refs.forEach(ref -> leases.computeIfPresent(ref, (key, existing) -> Objects.equals(existing.holder, holder) ? null : existing));
+    }
+
+    /**
+     * Drop the leases on the refs whoever holds them, once the spending transaction is confirmed or dead.
+     */
+    public void release(Collection<String> refs) {
+        refs.forEach(leases::remove);
+    }
+
+    public int size() {
+        return leases.size();
+    }
+
+    private static Utxo utxo(String ref) {
+        int separator = ref.lastIndexOf('#');
+        return Utxo.builder().txHash(ref.substring(0, separator)).outputIndex(Integer.parseInt(ref.substring(separator + 1))).build();
+    }
+
+    private boolean lease(String ref, Lease lease, long currentSlot) {
+        while (true) {
+            Lease existing = leases.putIfAbsent(ref, lease);
+            if (existing == null)
+                return true;
+            if (!existing.isExpired(currentSlot) && !Objects.equals(existing.holder, lease.holder))
+                return false;
+            if (leases.replace(ref, existing, lease))
+                return true;
+        }
+    }
+
+    @Scheduled(fixedDelay = 30_000)
+    public void purgeExpired() {
+        if (!slotClock.isSynced())
+            return;
+        try {
+            long currentSlot = slotClock.getCurrentSlot();
+            leases.values().removeIf(lease -> lease.isExpired(currentSlot));
+        } catch (ApiException e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    private final class LeasedSet extends AbstractSet<Utxo> {
+
+        private final String holder;
+        private final long currentSlot;
+
+        private LeasedSet(String holder, long currentSlot) {
+            this.holder = holder;
+            this.currentSlot = currentSlot;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Utxo))
+                return false;
+            Utxo utxo = (Utxo) o;
+            return isLeasedByOthers(leases.get(ref(utxo.getTxHash(), utxo.getOutputIndex())));
+        }
+
+        @Override
+        public Iterator<Utxo> iterator() {
+            return leases.values().stream().filter(this::isLeasedByOthers).map(lease -> lease.utxo).iterator();
+        }
+
+        @Override
+        public int size() {
+            return (int) leases.values().stream().filter(this::isLeasedByOthers).count();
+        }
+
+        private boolean isLeasedByOthers(Lease lease) {
+            return lease != null && !lease.isExpired(currentSlot) && !Objects.equals(lease.holder, holder);
+        }
+    }
+
+    private static final class Lease {
+
+        private final String holder;
+        private final Utxo utxo;
+        private final long expirySlot;
+
+        private Lease(String holder, Utxo utxo, long expirySlot) {
+            this.holder = holder;
+            this.utxo = utxo;
+            this.expirySlot = expirySlot;
+        }
+
+        private boolean isExpired(long currentSlot) {
+            return currentSlot > expirySlot;
+        }
+    }
+}
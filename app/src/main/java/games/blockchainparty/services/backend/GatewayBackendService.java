@@ -0,0 +1,247 @@
+package games.blockchainparty.services.backend;
+
+import com.bloxbean.cardano.client.backend.api.*;
+import com.bloxbean.cardano.client.backend.model.Result;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link BackendService} decorator keeping Blockfrost usage inside the plan's request budget.
+ * Reads are served from a short-TTL cache of successful results, identical concurrent reads share one in-flight call,
+ * and every call that reaches the backend first takes a token, waiting up to maxWait before failing locally with a 429.
+ */
+@Slf4j
+public class GatewayBackendService implements BackendService {
+
+    private static final int MAX_CACHE_ENTRIES = 10_000;
+    private static final String SUBMIT_METHOD = "submitTransaction";
+
+    private final TokenBucket budget;
+    private final long maxWaitNanos;
+    private final long cacheTtlNanos;
+    private final Map<CallKey, CachedResult> cache = new ConcurrentHashMap<>();
+    private final Map<CallKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter called;
+    private final Counter cached;
+    private final Counter coalesced;
+    private final Counter throttled;
+
+    private final AssetService assetService;
+    private final BlockService blockService;
+    private final NetworkInfoService networkInfoService;
+    private final TransactionService transactionService;
+    private final UtxoService utxoService;
+    private final AddressService addressService;
+    private final EpochService epochService;
+    private final MetadataService metadataService;
+
+    public GatewayBackendService(BackendService backendService, String provider, double ratePerSecond, int burst, long maxWaitMillis, long cacheTtlMillis, MeterRegistry meterRegistry) {
+        this.budget = new TokenBucket(ratePerSecond, burst);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.cacheTtlNanos = TimeUnit.MILLISECONDS.toNanos(cacheTtlMillis);
+        this.called = meterRegistry.counter("backend.gateway", "provider", provider, "outcome", "called");
+        this.cached = meterRegistry.counter("backend.gateway", "provider", provider, "outcome", "cached");
+        this.coalesced = meterRegistry.counter("backend.gateway", "provider", provider, "outcome", "coalesced");
+        this.throttled = meterRegistry.counter("backend.gateway", "provider", provider, "outcome", "throttled");
+
+        this.assetService = gated(AssetService.class, backendService.getAssetService());
+        this.blockService = gated(BlockService.class, backendService.getBlockService());
+        this.networkInfoService = gated(NetworkInfoService.class, backendService.getNetworkInfoService());
+        this.transactionService = gated(TransactionService.class, backendService.getTransactionService());
+        this.utxoService = gated(UtxoService.class, backendService.getUtxoService());
+        this.addressService = gated(AddressService.class, backendService.getAddressService());
+        this.epochService = gated(EpochService.class, backendService.getEpochService());
+        this.metadataService = gated(MetadataService.class, backendService.getMetadataService());
+    }
+
+    @Override
+    public AssetService getAssetService() {
+        return assetService;
+    }
+
+    @Override
+    public BlockService getBlockService() {
+        return blockService;
+    }
+
+    @Override
+    public NetworkInfoService getNetworkInfoService() {
+        return networkInfoService;
+    }
+
+    @Override
+    public TransactionService getTransactionService() {
+        return transactionService;
+    }
+
+    @Override
+    public UtxoService getUtxoService() {
+        return utxoService;
+    }
+
+    @Override
+    public AddressService getAddressService() {
+        return addressService;
+    }
+
+    @Override
+    public EpochService getEpochService() {
+        return epochService;
+    }
+
+    @Override
+    public MetadataService getMetadataService() {
+        return metadataService;
+    }
+
+    private <T> T gated(Class<T> serviceType, T service) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class)
+                return method.invoke(service, args);
+            if (SUBMIT_METHOD.equals(method.getName())) {
+                Object result = call(service, method, args);
+                if (result instanceof Result && ((Result<?>) result).isSuccessful()) { //Spent inputs, cached UTXO pages are stale now.
+                    cache.keySet().removeIf(key -> key.serviceType == UtxoService.class);
+                }
+                return result;
+            }
+            return read(new CallKey(serviceType, method, args), service);
+        };
+        return serviceType.cast(Proxy.newProxyInstance(serviceType.getClassLoader(), new Class<?>[]{serviceType}, handler));
+    }
+
+    private Object read(CallKey key, Object service) throws Throwable {
+        long now = System.nanoTime();
+        CachedResult cachedResult = cache.get(key);
+        if (cachedResult != null) {
+            if (now - cachedResult.expiresAt < 0) {
+                cached.increment();
+                return cachedResult.value;
+            }
+            cache.remove(key, cachedResult);
+        }
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, future);
+        if (leader != null) {
+            coalesced.increment();
+            try {
+                return leader.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+        try {
+            Object result = call(service, key.method, key.args);
+            if (cacheTtlNanos > 0 && result instanceof Result && ((Result<?>) result).isSuccessful()) {
+                cache(key, result);
+            }
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private Object call(Object service, Method method, Object[] args) throws Throwable {
+        if (!acquire()) {
+            throttled.increment();
+            return Result.error("Blockfrost request budget exhausted, " + method.getName() + " not sent").code(429);
+        }
+        called.increment();
+        Object result;
+        try {
+            result = method.invoke(service, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+        if (result instanceof Result && ((Result<?>) result).code() == 429) {
+            log.warn("Blockfrost answered 429 to " + method.getName() + ", draining the local request budget");
+            budget.drain();
+        }
+        return result;
+    }
+
+    private boolean acquire() {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (!budget.tryAcquire()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                return false;
+            LockSupport.parkNanos(Math.min(remaining, Math.max(budget.nanosUntilAvailable(), 1_000)));
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void cache(CallKey key, Object value) {
+        long now = System.nanoTime();
+        if (cache.size() >= MAX_CACHE_ENTRIES) {
+            cache.values().removeIf(entry -> now - entry.expiresAt >= 0);
+            if (cache.size() >= MAX_CACHE_ENTRIES)
+                return;
+        }
+        cache.put(key, new CachedResult(value, now + cacheTtlNanos));
+    }
+
+    private static final class CallKey {
+
+        private final Class<?> serviceType;
+        private final Method method;
+        private final Object[] args;
+        private final int hash;
+
+        private CallKey(Class<?> serviceType, Method method, Object[] args) {
+            this.serviceType = serviceType;
+            this.method = method;
+            this.args = args;
+            this.hash = 31 * method.hashCode() + Arrays.deepHashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof CallKey))
+                return false;
+            CallKey other = (CallKey) o;
+            return hash == other.hash && Objects.equals(method, other.method) && Arrays.deepEquals(args, other.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class CachedResult {
+
+        private final Object value;
+        private final long expiresAt;
+
+        private CachedResult(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
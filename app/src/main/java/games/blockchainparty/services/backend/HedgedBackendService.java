@@ -0,0 +1,298 @@
+package games.blockchainparty.services.backend;
+
+import com.bloxbean.cardano.client.backend.api.*;
+import com.bloxbean.cardano.client.backend.model.Result;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import games.blockchainparty.services.metrics.MeteredBackendService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * {@link BackendService} over several providers (Blockfrost projects, self-hosted Blockfrost-compatible APIs, simulators).
+ * Calls go to the healthiest, fastest provider first. A read not answered within that provider's latency percentile is hedged to the next one,
+ * the first usable answer wins. Exceptions, 429 and 5xx fail over immediately, and a provider failing repeatedly is benched for a cooldown.
+ * Submissions are never hedged and only fail over on a 429: after an exception or a 5xx the provider may have accepted the transaction already.
+ */
+@Slf4j
+public class HedgedBackendService implements BackendService, AutoCloseable {
+
+    private static final double EWMA_ALPHA = 0.2;
+    private static final double DEGRADED_FAILURE_RATE = 0.5;
+    private static final long DEGRADED_COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final String SUBMIT_METHOD = "submitTransaction";
+
+    private final List<Provider> providers = new ArrayList<>();
+    private final double hedgePercentile;
+    private final long minHedgeDelayNanos;
+    private final long initialHedgeDelayNanos;
+    private final ExecutorService executor;
+    private final Counter hedges;
+    private final Counter failovers;
+
+    private final AssetService assetService;
+    private final BlockService blockService;
+    private final NetworkInfoService networkInfoService;
+    private final TransactionService transactionService;
+    private final UtxoService utxoService;
+    private final AddressService addressService;
+    private final EpochService epochService;
+    private final MetadataService metadataService;
+
+    /**
+     * @param backends         providers by name, in the order preferred before any latency is known
+     * @param hedgePercentile  latency percentile of the primary after which a read is hedged, e.g. 95
+     * @param minHedgeDelayMillis lower bound of the hedge delay, so fast providers are not hedged on noise
+     * @param initialHedgeDelayMillis hedge delay used until a provider has enough samples
+     */
+    public HedgedBackendService(Map<String, BackendService> backends, double hedgePercentile, long minHedgeDelayMillis, long initialHedgeDelayMillis,
+                                MeterRegistry meterRegistry) {
+        if (backends.isEmpty())
+            throw new IllegalArgumentException("At least one backend provider is required");
+        this.hedgePercentile = hedgePercentile;
+        this.minHedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(minHedgeDelayMillis);
+        this.initialHedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(initialHedgeDelayMillis);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "backend-hedge-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.hedges = meterRegistry.counter("backend.hedges");
+        this.failovers = meterRegistry.counter("backend.failovers");
+        backends.forEach((name, backendService) -> {
+            Provider provider = new Provider(name, backendService, providers.size());
+            providers.add(provider);
+            Gauge.builder("backend.provider.latency", provider, p -> p.latencyEwmaNanos / 1e6).tag("provider", name).baseUnit("milliseconds").register(meterRegistry);
+            Gauge.builder("backend.provider.degraded", provider, p -> p.isDegraded(System.nanoTime()) ? 1 : 0).tag("provider", name).register(meterRegistry);
+        });
+        log.info("Backend providers: " + backends.keySet());
+
+        this.assetService = composite(AssetService.class, BackendService::getAssetService);
+        this.blockService = composite(BlockService.class, BackendService::getBlockService);
+        this.networkInfoService = composite(NetworkInfoService.class, BackendService::getNetworkInfoService);
+        this.transactionService = composite(TransactionService.class, BackendService::getTransactionService);
+        this.utxoService = composite(UtxoService.class, BackendService::getUtxoService);
+        this.addressService = composite(AddressService.class, BackendService::getAddressService);
+        this.epochService = composite(EpochService.class, BackendService::getEpochService);
+        this.metadataService = composite(MetadataService.class, BackendService::getMetadataService);
+    }
+
+    @Override
+    public AssetService getAssetService() {
+        return assetService;
+    }
+
+    @Override
+    public BlockService getBlockService() {
+        return blockService;
+    }
+
+    @Override
+    public NetworkInfoService getNetworkInfoService() {
+        return networkInfoService;
+    }
+
+    @Override
+    public TransactionService getTransactionService() {
+        return transactionService;
+    }
+
+    @Override
+    public UtxoService getUtxoService() {
+        return utxoService;
+    }
+
+    @Override
+    public AddressService getAddressService() {
+        return addressService;
+    }
+
+    @Override
+    public EpochService getEpochService() {
+        return epochService;
+    }
+
+    @Override
+    public MetadataService getMetadataService() {
+        return metadataService;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private <T> T composite(Class<T> serviceType, Function<BackendService, T> accessor) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class)
+                return method.invoke(this, args);
+            return call(accessor, method, args, !SUBMIT_METHOD.equals(method.getName()));
+        };
+        return serviceType.cast(Proxy.newProxyInstance(serviceType.getClassLoader(), new Class<?>[]{serviceType}, handler));
+    }
+
+    private Object call(Function<BackendService, ?> accessor, Method method, Object[] args, boolean hedge) throws Throwable {
+        List<Provider> ranked = ranked();
+        BlockingQueue<Attempt> completed = new LinkedBlockingQueue<>();
+        int next = 0;
+        int running = 0;
+        Attempt lastFailure = null;
+        AtomicInteger callCounter = MeteredBackendService.callCounter();
+        start(ranked.get(next++), accessor, method, args, completed, callCounter);
+        running++;
+        while (running > 0) {
+            Attempt attempt;
+            if (hedge && next < ranked.size()) {
+                attempt = completed.poll(ranked.get(0).hedgeDelayNanos(), TimeUnit.NANOSECONDS);
+                if (attempt == null) {
+                    hedges.increment();
+                    start(ranked.get(next++), accessor, method, args, completed, callCounter);
+                    running++;
+                    continue;
+                }
+            } else {
+                attempt = completed.take();
+            }
+            running--;
+            if (attempt.isUsable())
+                return attempt.result;
+            lastFailure = attempt;
+            if (next < ranked.size() && (hedge || attempt.isRateLimited())) {
+                failovers.increment();
+                start(ranked.get(next++), accessor, method, args, completed, callCounter);
+                running++;
+            }
+        }
+        if (lastFailure.exception != null)
+            throw lastFailure.exception;
+        return lastFailure.result;
+    }
+
+    /**
+     * Run the call on a worker thread, counting it on the caller's backend call counter.
+     */
+    private void start(Provider provider, Function<BackendService, ?> accessor, Method method, Object[] args, BlockingQueue<Attempt> completed, AtomicInteger callCounter) {
+        executor.execute(() -> MeteredBackendService.countingOn(callCounter, () -> {
+            long start = System.nanoTime();
+            Attempt attempt;
+            try {
+                attempt = new Attempt(method.invoke(accessor.apply(provider.backendService), args), null);
+            } catch (InvocationTargetException e) {
+                attempt = new Attempt(null, e.getCause());
+            } catch (Throwable e) {
+                attempt = new Attempt(null, e);
+            }
+            provider.record(System.nanoTime() - start, attempt.isUsable());
+            completed.add(attempt);
+        }));
+    }
+
+    /**
+     * Healthy providers by latency, then benched ones, so they are still tried when everything else fails.
+     */
+    private List<Provider> ranked() {
+        long now = System.nanoTime();
+        List<Provider> ranked = new ArrayList<>(providers);
+        ranked.sort(Comparator.comparing((Provider provider) -> provider.isDegraded(now))
+                .thenComparingDouble(provider -> provider.latencyEwmaNanos)
+                .thenComparingInt(provider -> provider.order));
+        return ranked;
+    }
+
+    private final class Provider {
+
+        private static final int SAMPLES = 128;
+        private static final int MIN_SAMPLES = 16;
+
+        private final String name;
+        private final BackendService backendService;
+        private final int order;
+        private final long[] latencies = new long[SAMPLES];
+        private int samples;
+        private volatile long hedgeDelayNanos = initialHedgeDelayNanos;
+        private volatile double latencyEwmaNanos;
+        private volatile double failureEwma;
+        private volatile long degradedUntil;
+
+        private Provider(String name, BackendService backendService, int order) {
+            this.name = name;
+            this.backendService = backendService;
+            this.order = order;
+        }
+
+        private boolean isDegraded(long now) {
+            return now - degradedUntil < 0;
+        }
+
+        private long hedgeDelayNanos() {
+            return hedgeDelayNanos;
+        }
+
+        private synchronized void record(long latencyNanos, boolean usable) {
+            failureEwma = EWMA_ALPHA * (usable ? 0 : 1) + (1 - EWMA_ALPHA) * failureEwma;
+            if (failureEwma > DEGRADED_FAILURE_RATE && !isDegraded(System.nanoTime())) {
+                log.warn("Backend provider " + name + " degraded, benching it for " + TimeUnit.NANOSECONDS.toSeconds(DEGRADED_COOLDOWN_NANOS) + "s");
+                degradedUntil = System.nanoTime() + DEGRADED_COOLDOWN_NANOS;
+                failureEwma = DEGRADED_FAILURE_RATE / 2; //Half way back, a couple of failures after the cooldown bench it again.
+            }
+            if (!usable)
+                return;
+            latencyEwmaNanos = latencyEwmaNanos == 0 ? latencyNanos : EWMA_ALPHA * latencyNanos + (1 - EWMA_ALPHA) * latencyEwmaNanos;
+            latencies[samples++ % SAMPLES] = latencyNanos;
+            if (samples >= MIN_SAMPLES && samples % MIN_SAMPLES == 0) {
+                long[] sorted = Arrays.copyOf(latencies, Math.min(samples, SAMPLES));
+                Arrays.sort(sorted);
+                int index = (int) Math.ceil(hedgePercentile / 100 * sorted.length) - 1;
+                hedgeDelayNanos = Math.max(minHedgeDelayNanos, sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+            }
+        }
+    }
+
+    private static final class Attempt {
+
+        private final Object result;
+        private final Throwable exception;
+
+        private Attempt(Object result, Throwable exception) {
+            this.result = result;
+            this.exception = exception;
+        }
+
+        /**
+         * Anything but an exception, 429 or 5xx is an answer, a 404 for an unconfirmed transaction included.
+         */
+        private boolean isUsable() {
+            if (exception != null)
+                return false;
+            if (!(result instanceof Result))
+                return true;
+            int code = ((Result<?>) result).code();
+            return code != 429 && code < 500;
+        }
+
+        /**
+         * Turned away before the provider looked at the call, so it is safe to repeat elsewhere.
+         */
+        private boolean isRateLimited() {
+            return exception == null && result instanceof Result && ((Result<?>) result).code() == 429;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package games.blockchainparty.services.backend;
+
+import com.bloxbean.cardano.client.backend.model.Result;
+
+/**
+ * Typed {@link Result} factories, the library's own return the raw type.
+ */
+public final class Results {
+
+    private Results() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> Result<T> success(T value) {
+        return Result.success("OK").withValue(value).code(200);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> Result<T> error(String response, int code) {
+        return Result.error(response).code(code);
+    }
+}
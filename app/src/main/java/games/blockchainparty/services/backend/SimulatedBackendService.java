@@ -0,0 +1,277 @@
+package games.blockchainparty.services.backend;
+
+import com.bloxbean.cardano.client.backend.api.*;
+import com.bloxbean.cardano.client.backend.common.OrderEnum;
+import com.bloxbean.cardano.client.backend.exception.ApiException;
+import com.bloxbean.cardano.client.backend.model.*;
+import com.bloxbean.cardano.client.backend.model.metadata.MetadataCBORContent;
+import com.bloxbean.cardano.client.backend.model.metadata.MetadataJSONContent;
+import com.bloxbean.cardano.client.backend.model.metadata.MetadataLabel;
+import games.blockchainparty.config.SimulatorProperties;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Blockfrost stand-in over a {@link SimulatedChain}, for load tests without spending API quota.
+ * Every call pays the configured latency, fails with a 500 at the configured error rate and gets a 429 once the token bucket is empty.
+ * Lookups the chain does not model answer 404 or 501, like a Blockfrost without that data would.
+ */
+public class SimulatedBackendService implements BackendService {
+
+    private final SimulatedChain chain;
+    private final long latencyMillis;
+    private final long latencyJitterMillis;
+    private final double errorRate;
+    private final TokenBucket rateLimit;
+
+    private final NetworkInfoService networkInfoService;
+    private final BlockService blockService;
+    private final EpochService epochService;
+    private final UtxoService utxoService;
+    private final TransactionService transactionService;
+    private final AssetService assetService;
+    private final AddressService addressService;
+    private final MetadataService metadataService;
+
+    public SimulatedBackendService(SimulatorProperties properties) {
+        this(properties, new SimulatedChain(properties));
+    }
+
+    /**
+     * A provider over an existing chain, so several simulated providers see the same ledger.
+     */
+    public SimulatedBackendService(SimulatorProperties properties, SimulatedChain chain) {
+        this.chain = chain;
+        this.latencyMillis = properties.getLatencyMs();
+        this.latencyJitterMillis = properties.getLatencyJitterMs();
+        this.errorRate = properties.getErrorRate();
+        this.rateLimit = properties.getRateLimitRps() > 0 ? new TokenBucket(properties.getRateLimitRps(), properties.getRateLimitBurst()) : null;
+
+        this.networkInfoService = simulated(NetworkInfoService.class, () -> success(chain.getGenesis()));
+        this.blockService = simulated(BlockService.class, new SimulatedBlockService());
+        this.epochService = simulated(EpochService.class, new SimulatedEpochService());
+        this.utxoService = simulated(UtxoService.class, new SimulatedUtxoService());
+        this.transactionService = simulated(TransactionService.class, new SimulatedTransactionService());
+        this.assetService = simulated(AssetService.class, asset -> notFound());
+        this.addressService = simulated(AddressService.class, new SimulatedAddressService());
+        this.metadataService = simulated(MetadataService.class, new SimulatedMetadataService());
+    }
+
+    public SimulatedChain getChain() {
+        return chain;
+    }
+
+    @Override
+    public NetworkInfoService getNetworkInfoService() {
+        return networkInfoService;
+    }
+
+    @Override
+    public BlockService getBlockService() {
+        return blockService;
+    }
+
+    @Override
+    public EpochService getEpochService() {
+        return epochService;
+    }
+
+    @Override
+    public UtxoService getUtxoService() {
+        return utxoService;
+    }
+
+    @Override
+    public TransactionService getTransactionService() {
+        return transactionService;
+    }
+
+    @Override
+    public AssetService getAssetService() {
+        return assetService;
+    }
+
+    @Override
+    public AddressService getAddressService() {
+        return addressService;
+    }
+
+    @Override
+    public MetadataService getMetadataService() {
+        return metadataService;
+    }
+
+    /**
+     * Apply latency, rate limit and injected errors in front of the simulated service.
+     */
+    private <T> T simulated(Class<T> serviceType, T service) {
+        return serviceType.cast(Proxy.newProxyInstance(serviceType.getClassLoader(), new Class<?>[]{serviceType}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class)
+                return method.invoke(service, args);
+            sleepLatency();
+            if (rateLimit != null && !rateLimit.tryAcquire())
+                return Results.error("Usage is over limit.", 429);
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate)
+                return Results.error("Simulated server error", 500);
+            try {
+                return method.invoke(service, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }));
+    }
+
+    private void sleepLatency() throws InterruptedException {
+        long latency = latencyMillis;
+        if (latencyJitterMillis > 0) { //Exponential tail on top of the base latency
+            latency += (long) (-latencyJitterMillis * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+        }
+        if (latency > 0) {
+            TimeUnit.MILLISECONDS.sleep(latency);
+        }
+    }
+
+    private static <T> Result<T> success(T value) {
+        return Results.success(value);
+    }
+
+    private static <T> Result<T> notFound() {
+        return Results.error("Not Found", 404);
+    }
+
+    private static <T> Result<T> notSimulated() {
+        return Results.error("Not simulated", 501);
+    }
+
+    private final class SimulatedBlockService implements BlockService {
+
+        @Override
+        public Result<Block> getLastestBlock() {
+            return success(chain.getTip());
+        }
+
+        @Override
+        public Result<Block> getBlockByHash(String blockHash) {
+            return notFound();
+        }
+
+        @Override
+        public Result<Block> getBlockByNumber(BigInteger blockNumber) {
+            return notFound();
+        }
+    }
+
+    private final class SimulatedEpochService implements EpochService {
+
+        @Override
+        public Result<EpochContent> getLatestEpoch() {
+            return success(chain.getEpoch(chain.getCurrentEpoch()));
+        }
+
+        @Override
+        public Result<EpochContent> getEpoch(Integer epoch) {
+            return success(chain.getEpoch(epoch));
+        }
+
+        @Override
+        public Result<ProtocolParams> getProtocolParameters(Integer epoch) {
+            return success(chain.getProtocolParams());
+        }
+
+        @Override
+        public Result<ProtocolParams> getProtocolParameters() {
+            return success(chain.getProtocolParams());
+        }
+    }
+
+    private final class SimulatedUtxoService implements UtxoService {
+
+        @Override
+        public Result<List<Utxo>> getUtxos(String address, int count, int page) {
+            return getUtxos(address, count, page, OrderEnum.asc);
+        }
+
+        @Override
+        public Result<List<Utxo>> getUtxos(String address, int count, int page, OrderEnum order) {
+            return success(chain.getUtxos(address, count, page, order == OrderEnum.desc));
+        }
+    }
+
+    private final class SimulatedTransactionService implements TransactionService {
+
+        @Override
+        public Result<String> submitTransaction(byte[] cborData) throws ApiException {
+            try {
+                return success(chain.submit(cborData));
+            } catch (IllegalArgumentException e) {
+                return Results.error(e.getMessage(), 400);
+            }
+        }
+
+        @Override
+        public Result<TransactionContent> getTransaction(String txnHash) {
+            return chain.isConfirmed(txnHash) ? success(new TransactionContent()) : notFound();
+        }
+
+        @Override
+        public Result<TxContentUtxo> getTransactionUtxos(String txnHash) {
+            return notFound();
+        }
+    }
+
+    private final class SimulatedAddressService implements AddressService {
+
+        @Override
+        public Result<AddressContent> getAddressInfo(String address) {
+            AddressContent addressContent = new AddressContent();
+            addressContent.setAmount(chain.getBalance(address).entrySet().stream()
+                    .map(amount -> new TxContentOutputAmount(amount.getKey(), amount.getValue().toString()))
+                    .collect(Collectors.toList()));
+            return success(addressContent);
+        }
+
+        @Override
+        public Result<List<AddressTransactionContent>> getTransactions(String address, int count, int page) {
+            return notSimulated();
+        }
+
+        @Override
+        public Result<List<AddressTransactionContent>> getTransactions(String address, int count, int page, OrderEnum order) {
+            return notSimulated();
+        }
+    }
+
+    private static final class SimulatedMetadataService implements MetadataService {
+
+        @Override
+        public Result<List<MetadataJSONContent>> getJSONMetadataByTxnHash(String txnHash) {
+            return notSimulated();
+        }
+
+        @Override
+        public Result<List<MetadataCBORContent>> getCBORMetadataByTxnHash(String txnHash) {
+            return notSimulated();
+        }
+
+        @Override
+        public Result<List<MetadataLabel>> getMetadataLabels(int count, int page, OrderEnum order) {
+            return notSimulated();
+        }
+
+        @Override
+        public Result<List<MetadataJSONContent>> getJSONMetadataByLabel(BigInteger label, int count, int page, OrderEnum order) {
+            return notSimulated();
+        }
+
+        @Override
+        public Result<List<MetadataCBORContent>> getCBORMetadataByLabel(BigInteger label, int count, int page, OrderEnum order) {
+            return notSimulated();
+        }
+    }
+}
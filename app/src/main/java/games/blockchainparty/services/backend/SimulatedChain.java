@@ -0,0 +1,235 @@
+package games.blockchainparty.services.backend;
+
+import com.bloxbean.cardano.client.backend.model.Amount;
+import com.bloxbean.cardano.client.backend.model.Block;
+import com.bloxbean.cardano.client.backend.model.EpochContent;
+import com.bloxbean.cardano.client.backend.model.Genesis;
+import com.bloxbean.cardano.client.backend.model.ProtocolParams;
+import com.bloxbean.cardano.client.backend.model.Utxo;
+import com.bloxbean.cardano.client.exception.CborDeserializationException;
+import com.bloxbean.cardano.client.transaction.spec.*;
+import com.bloxbean.cardano.client.util.HexUtil;
+import games.blockchainparty.config.SimulatorProperties;
+import games.blockchainparty.services.cbor.CborReader;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static com.bloxbean.cardano.client.common.CardanoConstants.LOVELACE;
+import static com.bloxbean.cardano.client.crypto.KeyGenUtil.blake2bHash256;
+
+/**
+ * Synthetic chain state: a tip advancing one slot per second, per-address UTXO sets generated on first use,
+ * a mempool that spends inputs on submit and a block that adds the outputs after the confirmation delay.
+ * Spending an unknown or already spent input is rejected, like the ledger does.
+ */
+public class SimulatedChain {
+
+    public static final int NETWORK_MAGIC = 1097911063;
+    private static final long GENESIS_SLOT = 50_000_000;
+    private static final int EPOCH = 300;
+    private static final long EPOCH_SECONDS = 432_000;
+
+    private final UtxoDistribution distribution;
+    private final int utxosPerAddress;
+    private final long seed;
+    private final long confirmDelayMillis;
+    private final long startMillis = System.currentTimeMillis();
+    private final ProtocolParams protocolParams = protocolParams();
+    private final Map<String, List<Utxo>> utxosByAddress = new ConcurrentHashMap<>();
+    private final Map<String, Long> confirmedAt = new ConcurrentHashMap<>();
+    private final Queue<PendingOutput> unconfirmed = new ConcurrentLinkedQueue<>();
+
+    public SimulatedChain(UtxoDistribution distribution, int utxosPerAddress, long seed, long confirmDelayMillis) {
+        this.distribution = distribution;
+        this.utxosPerAddress = utxosPerAddress;
+        this.seed = seed;
+        this.confirmDelayMillis = confirmDelayMillis;
+    }
+
+    public SimulatedChain(SimulatorProperties properties) {
+        this(new UtxoDistribution(properties.getDustRatio(), properties.getMidRatio(), properties.getTokenRatio(), properties.getTokensPerUtxo()),
+                properties.getUtxosPerAddress(), properties.getSeed(), properties.getConfirmDelayMs());
+    }
+
+    /**
+     * Mainnet-like parameters for the Alonzo era.
+     */
+    public static ProtocolParams protocolParams() {
+        ProtocolParams protocolParams = new ProtocolParams();
+        protocolParams.setMinFeeA(44);
+        protocolParams.setMinFeeB(155381);
+        protocolParams.setMaxTxSize(16384);
+        protocolParams.setMinUtxo("1000000");
+        protocolParams.setCoinsPerUtxoWord("34482");
+        return protocolParams;
+    }
+
+    public Genesis getGenesis() {
+        Genesis genesis = new Genesis();
+        genesis.setNetworkMagic(NETWORK_MAGIC);
+        genesis.setSlotLength(1);
+        return genesis;
+    }
+
+    public Block getTip() {
+        long elapsedSeconds = (System.currentTimeMillis() - startMillis) / 1000;
+        Block block = new Block();
+        block.setSlot(GENESIS_SLOT + elapsedSeconds);
+        block.setTime(startMillis / 1000 + elapsedSeconds);
+        block.setHeight(3_000_000 + elapsedSeconds / 20);
+        return block;
+    }
+
+    public EpochContent getEpoch(int epoch) {
+        EpochContent epochContent = new EpochContent();
+        epochContent.setEpoch(epoch);
+        epochContent.setStartTime(startMillis / 1000 + (epoch - EPOCH) * EPOCH_SECONDS);
+        epochContent.setEndTime(epochContent.getStartTime() + EPOCH_SECONDS);
+        return epochContent;
+    }
+
+    public int getCurrentEpoch() {
+        return EPOCH + (int) ((System.currentTimeMillis() - startMillis) / 1000 / EPOCH_SECONDS);
+    }
+
+    public ProtocolParams getProtocolParams() {
+        return protocolParams;
+    }
+
+    /**
+     * One page of the address UTXOs, ordered by creation.
+     */
+    public List<Utxo> getUtxos(String address, int count, int page, boolean descending) {
+        addConfirmedOutputs();
+        List<Utxo> utxos = utxos(address);
+        List<Utxo> pageData = new ArrayList<>();
+        synchronized (utxos) {
+            int from = Math.max(page - 1, 0) * count;
+            for (int i = from; i < from + count && i < utxos.size(); i++) {
+                pageData.add(descending ? utxos.get(utxos.size() - 1 - i) : utxos.get(i));
+            }
+        }
+        return pageData;
+    }
+
+    /**
+     * Total of every unit held in the address UTXOs, lovelace first.
+     */
+    public Map<String, BigInteger> getBalance(String address) {
+        addConfirmedOutputs();
+        List<Utxo> utxos = utxos(address);
+        Map<String, BigInteger> balance = new LinkedHashMap<>();
+        balance.put(LOVELACE, BigInteger.ZERO);
+        synchronized (utxos) {
+            for (Utxo utxo : utxos) {
+                for (Amount amount : utxo.getAmount()) {
+                    balance.merge(amount.getUnit(), amount.getQuantity(), BigInteger::add);
+                }
+            }
+        }
+        return balance;
+    }
+
+    /**
+     * @return the transaction hash
+     * @throws IllegalArgumentException if the bytes are not a transaction or an input is not spendable
+     */
+    public String submit(byte[] transactionBytes) {
+        Transaction transaction;
+        byte[] body;
+        try {
+            CborReader reader = new CborReader(transactionBytes);
+            reader.readHeader(CborReader.MAJOR_ARRAY);
+            body = reader.readItem();
+            transaction = Transaction.deserialize(transactionBytes);
+        } catch (CborDeserializationException | RuntimeException e) {
+            throw new IllegalArgumentException("Malformed transaction: " + e.getMessage(), e);
+        }
+        String txHash = HexUtil.encodeHexString(blake2bHash256(body));
+        List<TransactionOutput> outputs = transaction.getBody().getOutputs();
+        spend(outputs.isEmpty() ? null : outputs.get(0).getAddress(), transaction.getBody().getInputs());
+
+        long confirmAt = System.currentTimeMillis() + confirmDelayMillis;
+        confirmedAt.put(txHash, confirmAt);
+        for (int index = 0; index < outputs.size(); index++) {
+            TransactionOutput output = outputs.get(index);
+            unconfirmed.add(new PendingOutput(confirmAt, output.getAddress(), new Utxo(txHash, index, amounts(output.getValue()), null)));
+        }
+        return txHash;
+    }
+
+    public boolean isConfirmed(String txHash) {
+        Long confirmAt = confirmedAt.get(txHash);
+        return confirmAt != null && System.currentTimeMillis() >= confirmAt;
+    }
+
+    /**
+     * Inputs are looked up in the wallet of the change address, which is where this server's transactions take them from.
+     */
+    private void spend(String address, List<TransactionInput> inputs) {
+        if (address == null || inputs.isEmpty())
+            throw new IllegalArgumentException("Transaction has no inputs or outputs");
+        List<Utxo> utxos = utxos(address);
+        synchronized (utxos) {
+            List<Utxo> spent = new ArrayList<>();
+            for (TransactionInput input : inputs) {
+                Optional<Utxo> utxo = utxos.stream()
+                        .filter(candidate -> candidate.getTxHash().equals(input.getTransactionId()) && candidate.getOutputIndex() == input.getIndex())
+                        .findFirst();
+                if (utxo.isEmpty())
+                    throw new IllegalArgumentException("BadInputsUTxO: " + input.getTransactionId() + "#" + input.getIndex());
+                spent.add(utxo.get());
+            }
+            utxos.removeAll(spent);
+        }
+    }
+
+    /**
+     * Outputs are queued in confirmation order, since the delay is the same for every transaction.
+     */
+    private void addConfirmedOutputs() {
+        long now = System.currentTimeMillis();
+        PendingOutput pending;
+        while ((pending = unconfirmed.peek()) != null && pending.confirmAt <= now) {
+            if (unconfirmed.remove(pending)) {
+                List<Utxo> utxos = utxos(pending.address);
+                synchronized (utxos) {
+                    utxos.add(pending.utxo);
+                }
+            }
+        }
+    }
+
+    private List<Utxo> utxos(String address) {
+        return utxosByAddress.computeIfAbsent(address, key -> new ArrayList<>(distribution.generate(utxosPerAddress, seed ^ key.hashCode())));
+    }
+
+    private static List<Amount> amounts(Value value) {
+        List<Amount> amounts = new ArrayList<>();
+        amounts.add(new Amount(LOVELACE, value.getCoin() != null ? value.getCoin() : BigInteger.ZERO));
+        if (value.getMultiAssets() != null) {
+            for (MultiAsset multiAsset : value.getMultiAssets()) {
+                for (Asset asset : multiAsset.getAssets()) {
+                    amounts.add(new Amount(multiAsset.getPolicyId() + HexUtil.encodeHexString(asset.getNameAsBytes()), asset.getValue()));
+                }
+            }
+        }
+        return amounts;
+    }
+
+    private static final class PendingOutput {
+
+        private final long confirmAt;
+        private final String address;
+        private final Utxo utxo;
+
+        private PendingOutput(long confirmAt, String address, Utxo utxo) {
+            this.confirmAt = confirmAt;
+            this.address = address;
+            this.utxo = utxo;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package games.blockchainparty.services.backend;
+
+/**
+ * Token bucket refilled continuously at ratePerSecond up to burst tokens, the model Blockfrost uses for its request limits.
+ */
+public final class TokenBucket {
+
+    private final double ratePerNano;
+    private final double burst;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double ratePerSecond, int burst) {
+        this.ratePerNano = ratePerSecond / 1e9;
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Take a token if one is available.
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1)
+            return false;
+        tokens--;
+        return true;
+    }
+
+    /**
+     * Nanoseconds until a token is available, 0 if one is available now.
+     */
+    public synchronized long nanosUntilAvailable() {
+        refill();
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / ratePerNano);
+    }
+
+    /**
+     * Empty the bucket, e.g. when the remote side answered with a 429 despite the local budget.
+     */
+    public synchronized void drain() {
+        refill();
+        tokens = 0;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * ratePerNano);
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,70 @@
+package games.blockchainparty.services.backend;
+
+import com.bloxbean.cardano.client.backend.model.Amount;
+import com.bloxbean.cardano.client.backend.model.Utxo;
+import com.bloxbean.cardano.client.util.HexUtil;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.bloxbean.cardano.client.common.CardanoConstants.LOVELACE;
+
+/**
+ * Shape of a synthetic wallet: dust (1-2 ADA), mid-sized (5-50 ADA) and large (100-1000 ADA) UTXOs, a share of them carrying native tokens.
+ */
+public final class UtxoDistribution {
+
+    private final double dustRatio;
+    private final double midRatio;
+    private final double tokenRatio;
+    private final int tokensPerUtxo;
+
+    public UtxoDistribution(double dustRatio, double midRatio, double tokenRatio, int tokensPerUtxo) {
+        if (dustRatio < 0 || midRatio < 0 || dustRatio + midRatio > 1)
+            throw new IllegalArgumentException("Dust and mid ratios must be non-negative and add up to at most 1");
+        this.dustRatio = dustRatio;
+        this.midRatio = midRatio;
+        this.tokenRatio = tokenRatio;
+        this.tokensPerUtxo = tokensPerUtxo;
+    }
+
+    /**
+     * Deterministic for a given seed.
+     */
+    public List<Utxo> generate(int size, long seed) {
+        Random random = new Random(seed);
+        List<Utxo> utxos = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            double bucket = random.nextDouble();
+            long lovelace;
+            if (bucket < dustRatio) {
+                lovelace = 1_000_000 + random.nextInt(1_000_000);
+            } else if (bucket < dustRatio + midRatio) {
+                lovelace = 5_000_000 + (long) random.nextInt(45_000_000);
+            } else {
+                lovelace = 100_000_000 + (long) random.nextInt(900_000_000);
+            }
+            List<Amount> amounts = new ArrayList<>();
+            amounts.add(new Amount(LOVELACE, BigInteger.valueOf(lovelace)));
+            if (random.nextDouble() < tokenRatio) {
+                for (int t = 0; t < tokensPerUtxo; t++) {
+                    amounts.add(new Amount(policyId(random.nextInt(8)) + HexUtil.encodeHexString(("Token" + random.nextInt(1000)).getBytes()), BigInteger.valueOf(1 + random.nextInt(1000))));
+                }
+            }
+            utxos.add(new Utxo(txHash(random), random.nextInt(4), amounts, null));
+        }
+        return utxos;
+    }
+
+    private static String policyId(int index) {
+        return String.format("%056x", index + 1);
+    }
+
+    private static String txHash(Random random) {
+        byte[] hash = new byte[32];
+        random.nextBytes(hash);
+        return HexUtil.encodeHexString(hash);
+    }
+}
@@ -0,0 +1,149 @@
+package games.blockchainparty.services.cbor;
+
+import java.util.Arrays;
+
+/**
+ * Walks encoded CBOR without decoding it, so items can be sliced out and re-assembled byte for byte.
+ */
+public final class CborReader {
+
+    public static final int MAJOR_UNSIGNED = 0;
+    public static final int MAJOR_NEGATIVE = 1;
+    public static final int MAJOR_BYTES = 2;
+    public static final int MAJOR_TEXT = 3;
+    public static final int MAJOR_ARRAY = 4;
+    public static final int MAJOR_MAP = 5;
+    public static final int MAJOR_TAG = 6;
+    public static final int MAJOR_SIMPLE = 7;
+    public static final long INDEFINITE = -1;
+    private static final int BREAK = 0xFF;
+
+    private final byte[] data;
+    private int position;
+
+    public CborReader(byte[] data) {
+        this.data = data;
+    }
+
+    public int position() {
+        return position;
+    }
+
+    public boolean hasNext() {
+        return position < data.length;
+    }
+
+    public int peekMajorType() {
+        return (data[position] & 0xFF) >>> 5;
+    }
+
+    /**
+     * Read the header of an item of the given major type.
+     * @return the length / value, or {@link #INDEFINITE}
+     */
+    public long readHeader(int majorType) {
+        if (peekMajorType() != majorType)
+            throw new IllegalArgumentException("Expected major type " + majorType + " at " + position + " but was " + peekMajorType());
+        return readHeader();
+    }
+
+    /**
+     * Content of the next definite-length byte string.
+     */
+    public byte[] readBytes() {
+        long length = readHeader(MAJOR_BYTES);
+        if (length == INDEFINITE)
+            throw new IllegalArgumentException("Indefinite byte string at " + position);
+        int start = position;
+        advance(length);
+        return Arrays.copyOfRange(data, start, position);
+    }
+
+    /**
+     * Next unsigned or negative integer that fits a long.
+     */
+    public long readLong() {
+        int majorType = peekMajorType();
+        if (majorType != MAJOR_UNSIGNED && majorType != MAJOR_NEGATIVE)
+            throw new IllegalArgumentException("Expected an integer at " + position + " but was major type " + majorType);
+        long value = readHeader();
+        if (value < 0)
+            throw new IllegalArgumentException("Integer out of range at " + position);
+        return majorType == MAJOR_UNSIGNED ? value : -1 - value;
+    }
+
+    /**
+     * Slice of the next complete item.
+     */
+    public byte[] readItem() {
+        int start = position;
+        skip();
+        return Arrays.copyOfRange(data, start, position);
+    }
+
+    public void skip() {
+        int majorType = peekMajorType();
+        long length = readHeader();
+        switch (majorType) {
+            case MAJOR_BYTES:
+            case MAJOR_TEXT:
+                if (length == INDEFINITE) {
+                    while (!readBreak()) {
+                        skip();
+                    }
+                } else {
+                    advance(length);
+                }
+                break;
+            case MAJOR_ARRAY:
+            case MAJOR_MAP:
+                long items = majorType == MAJOR_MAP ? 2 * length : length;
+                if (length == INDEFINITE) {
+                    while (!readBreak()) {
+                        skip();
+                    }
+                } else {
+                    for (long i = 0; i < items; i++) {
+                        skip();
+                    }
+                }
+                break;
+            case MAJOR_TAG:
+                skip();
+                break;
+            default: //Integers and simple values are header only
+                break;
+        }
+    }
+
+    private boolean readBreak() {
+        if ((data[position] & 0xFF) == BREAK) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private long readHeader() {
+        int initial = data[position++] & 0xFF;
+        int additional = initial & 0x1F;
+        if (additional < 24)
+            return additional;
+        if (additional == 31)
+            return INDEFINITE;
+        int bytes = additional == 24 ? 1 : additional == 25 ? 2 : additional == 26 ? 4 : additional == 27 ? 8 : -1;
+        if (bytes < 0)
+            throw new IllegalArgumentException("Malformed CBOR header at " + (position - 1));
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value = (value << 8) | (data[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    private void advance(long length) {
+        if (length > data.length - position)
+            throw new IllegalArgumentException("CBOR item exceeds input at " + position);
+        position += (int) length;
+    }
+}
@@ -0,0 +1,74 @@
+package games.blockchainparty.services.cbor;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes CBOR headers and raw items, for assembling encoded values from precomputed parts.
+ */
+public final class CborWriter {
+
+    private static final int TRUE = 0xF5;
+
+    private final ByteArrayOutputStream out;
+
+    public CborWriter(int initialSize) {
+        this.out = new ByteArrayOutputStream(initialSize);
+    }
+
+    public CborWriter writeHeader(int majorType, long length) {
+        int type = majorType << 5;
+        if (length < 24) {
+            out.write(type | (int) length);
+        } else if (length < 0x100) {
+            out.write(type | 24);
+            out.write((int) length);
+        } else if (length < 0x10000) {
+            out.write(type | 25);
+            writeBigEndian(length, 2);
+        } else if (length < 0x100000000L) {
+            out.write(type | 26);
+            writeBigEndian(length, 4);
+        } else {
+            out.write(type | 27);
+            writeBigEndian(length, 8);
+        }
+        return this;
+    }
+
+    public CborWriter writeText(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeHeader(CborReader.MAJOR_TEXT, bytes.length);
+        out.writeBytes(bytes);
+        return this;
+    }
+
+    public CborWriter writeBytes(byte[] bytes) {
+        writeHeader(CborReader.MAJOR_BYTES, bytes.length);
+        out.writeBytes(bytes);
+        return this;
+    }
+
+    public CborWriter writeTrue() {
+        out.write(TRUE);
+        return this;
+    }
+
+    /**
+     * Append an already encoded item.
+     */
+    public CborWriter writeRaw(byte[] item) {
+        out.writeBytes(item);
+        return this;
+    }
+
+    public byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    private void writeBigEndian(long value, int bytes) {
+        for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+            out.write((int) (value >> shift));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package games.blockchainparty.services.exception;
+
+import com.bloxbean.cardano.client.backend.exception.ApiException;
+
+/**
+ * A transaction handed in for signing that this server did not build, or that does not mint what its build reserved.
+ */
+public class RejectedTransactionException extends ApiException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RejectedTransactionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package games.blockchainparty.services.exception;
+
+import com.bloxbean.cardano.client.backend.exception.ApiException;
+
+public class TransactionTooLargeException extends ApiException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TransactionTooLargeException(long size, int maxTxSize) {
+        super(String.format("Transaction size %d exceeds maxTxSize %d", size, maxTxSize));
+    }
+}
@@ -0,0 +1,142 @@
+package games.blockchainparty.services.metrics;
+
+import com.bloxbean.cardano.client.backend.api.*;
+import com.bloxbean.cardano.client.backend.model.Result;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link BackendService} decorator timing every Blockfrost call as backend.calls, tagged with provider, service, method and outcome.
+ * Calls are also counted per thread, so a request running on one thread can report how many calls it made.
+ * Work handed to another thread keeps counting on the caller's counter through {@link #countingOn}.
+ */
+public class MeteredBackendService implements BackendService {
+
+    private static final ThreadLocal<AtomicInteger> CALLS = ThreadLocal.withInitial(AtomicInteger::new);
+
+    private final AssetService assetService;
+    private final BlockService blockService;
+    private final NetworkInfoService networkInfoService;
+    private final TransactionService transactionService;
+    private final UtxoService utxoService;
+    private final AddressService addressService;
+    private final EpochService epochService;
+    private final MetadataService metadataService;
+
+    public MeteredBackendService(BackendService backendService, String provider, MeterRegistry meterRegistry) {
+        this.assetService = metered(AssetService.class, backendService.getAssetService(), provider, meterRegistry);
+        this.blockService = metered(BlockService.class, backendService.getBlockService(), provider, meterRegistry);
+        this.networkInfoService = metered(NetworkInfoService.class, backendService.getNetworkInfoService(), provider, meterRegistry);
+        this.transactionService = metered(TransactionService.class, backendService.getTransactionService(), provider, meterRegistry);
+        this.utxoService = metered(UtxoService.class, backendService.getUtxoService(), provider, meterRegistry);
+        this.addressService = metered(AddressService.class, backendService.getAddressService(), provider, meterRegistry);
+        this.epochService = metered(EpochService.class, backendService.getEpochService(), provider, meterRegistry);
+        this.metadataService = metered(MetadataService.class, backendService.getMetadataService(), provider, meterRegistry);
+    }
+
+    /**
+     * Backend calls made by the current thread so far, take the difference around a unit of work.
+     */
+    public static int callsOnCurrentThread() {
+        return CALLS.get().get();
+    }
+
+    /**
+     * Counter of the current thread, to be passed to {@link #countingOn} on the thread doing the call.
+     */
+    public static AtomicInteger callCounter() {
+        return CALLS.get();
+    }
+
+    /**
+     * Run the action with its calls counted on the given counter.
+     */
+    public static void countingOn(AtomicInteger counter, Runnable action) {
+        AtomicInteger own = CALLS.get();
+        CALLS.set(counter);
+        try {
+            action.run();
+        } finally {
+            CALLS.set(own);
+        }
+    }
+
+    @Override
+    public AssetService getAssetService() {
+        return assetService;
+    }
+
+    @Override
+    public BlockService getBlockService() {
+        return blockService;
+    }
+
+    @Override
+    public NetworkInfoService getNetworkInfoService() {
+        return networkInfoService;
+    }
+
+    @Override
+    public TransactionService getTransactionService() {
+        return transactionService;
+    }
+
+    @Override
+    public UtxoService getUtxoService() {
+        return utxoService;
+    }
+
+    @Override
+    public AddressService getAddressService() {
+        return addressService;
+    }
+
+    @Override
+    public EpochService getEpochService() {
+        return epochService;
+    }
+
+    @Override
+    public MetadataService getMetadataService() {
+        return metadataService;
+    }
+
+    private static <T> T metered(Class<T> serviceType, T service, String provider, MeterRegistry meterRegistry) {
+        String serviceName = serviceType.getSimpleName();
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class)
+                return method.invoke(service, args);
+            CALLS.get().incrementAndGet();
+            long start = System.nanoTime();
+            String outcome = "exception";
+            try {
+                Object result = method.invoke(service, args);
+                outcome = result instanceof Result ? outcome((Result<?>) result) : "success";
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                Timer.builder("backend.calls")
+                        .tag("provider", provider)
+                        .tag("service", serviceName)
+                        .tag("method", method.getName())
+                        .tag("outcome", outcome)
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+        return serviceType.cast(Proxy.newProxyInstance(serviceType.getClassLoader(), new Class<?>[]{serviceType}, handler));
+    }
+
+    private static String outcome(Result<?> result) {
+        if (result.isSuccessful())
+            return "success";
+        return result.code() == 429 ? "rate_limited" : result.code() >= 500 ? "server_error" : "client_error";
+    }
+}
@@ -0,0 +1,25 @@
+package games.blockchainparty.services.model;
+
+import com.bloxbean.cardano.client.backend.model.Genesis;
+import com.bloxbean.cardano.client.backend.model.ProtocolParams;
+import lombok.Data;
+
+/**
+ * Chain data needed to serve mints, persisted so a restart does not wait for Blockfrost.
+ */
+@Data
+public class ChainSnapshot {
+
+    private Genesis genesis;
+    private long anchorSlot;
+    private long anchorTimeMillis;
+    private Integer epoch;
+    private long epochStartTime;
+    private long epochEndTime;
+    private ProtocolParams protocolParams;
+    private long savedAt;
+
+    public ChainSnapshot() {
+        //Empty Constructor
+    }
+}
@@ -0,0 +1,143 @@
+package games.blockchainparty.services.model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent bitmap over non-negative ints. Pages of 64K bits are allocated on first set, so sparse ranges cost nothing.
+ * Reads are lock-free, writes CAS the affected word.
+ * Every page carries a version bumped on each change, so readers can tell whether a range changed without comparing its bits.
+ */
+public final class PagedBitmap {
+
+    public static final int PAGE_SHIFT = 16;
+    public static final int WORDS_PER_PAGE = (1 << PAGE_SHIFT) / Long.SIZE;
+    private static final int PAGE_COUNT = 1 << (Integer.SIZE - 1 - PAGE_SHIFT);
+
+    private final AtomicReferenceArray<AtomicLongArray> pages = new AtomicReferenceArray<>(PAGE_COUNT);
+    private final AtomicLongArray versions = new AtomicLongArray(PAGE_COUNT);
+
+    public boolean get(int index) {
+        if (index < 0)
+            return false;
+        AtomicLongArray page = pages.get(index >>> PAGE_SHIFT);
+        return page != null && (page.get(wordIndex(index)) & bit(index)) != 0;
+    }
+
+    /**
+     * @return true if the bit was not set before
+     */
+    public boolean set(int index) {
+        if (index < 0)
+            throw new IllegalArgumentException("Negative index: " + index);
+        AtomicLongArray page = page(index >>> PAGE_SHIFT);
+        int wordIndex = wordIndex(index);
+        long bit = bit(index);
+        while (true) {
+            long word = page.get(wordIndex);
+            if ((word & bit) != 0)
+                return false;
+            if (page.compareAndSet(wordIndex, word, word | bit)) {
+                versions.incrementAndGet(index >>> PAGE_SHIFT);
+                return true;
+            }
+        }
+    }
+
+    public int pageCount() {
+        return PAGE_COUNT;
+    }
+
+    /**
+     * Copy of a page's words, or null if the page was never allocated.
+     */
+    public long[] pageWords(int pageIndex) {
+        AtomicLongArray page = pages.get(pageIndex);
+        if (page == null)
+            return null;
+        long[] words = new long[WORDS_PER_PAGE];
+        for (int i = 0; i < WORDS_PER_PAGE; i++) {
+            words[i] = page.get(i);
+        }
+        return words;
+    }
+
+    public void loadPage(int pageIndex, long[] words) {
+        AtomicLongArray page = page(pageIndex);
+        boolean changed = false;
+        for (int i = 0; i < WORDS_PER_PAGE; i++) {
+            long previous = page.getAndAccumulate(i, words[i], (a, b) -> a | b);
+            changed |= (previous | words[i]) != previous;
+        }
+        if (changed) {
+            versions.incrementAndGet(pageIndex);
+        }
+    }
+
+    /**
+     * Sum of the versions of the pages covering [fromIndex, toIndex). Versions only grow, so any bit set in the range changes it.
+     * Read it before the bits, a set racing with the read then shows up as a newer version next time rather than being missed.
+     */
+    public long version(int fromIndex, int toIndex) {
+        long version = 0;
+        for (int p = fromIndex >>> PAGE_SHIFT; p <= (toIndex - 1) >>> PAGE_SHIFT; p++) {
+            version += versions.get(p);
+        }
+        return version;
+    }
+
+    /**
+     * Bits [fromIndex, fromIndex + length) packed into bytes, bit i at byte i / 8, least significant bit first.
+     */
+    public byte[] toBytes(int fromIndex, int length) {
+        byte[] bytes = new byte[(length + 7) >>> 3];
+        for (int i = 0; i < length; ) {
+            int index = fromIndex + i;
+            int shift = index & 63;
+            int take = Math.min(Long.SIZE - shift, length - i);
+            AtomicLongArray page = pages.get(index >>> PAGE_SHIFT);
+            if (page != null) {
+                long word = page.get(wordIndex(index)) >>> shift;
+                if (take < Long.SIZE) {
+                    word &= (1L << take) - 1;
+                }
+                for (; word != 0; word &= word - 1) {
+                    int bit = i + Long.numberOfTrailingZeros(word);
+                    bytes[bit >>> 3] |= 1 << (bit & 7);
+                }
+            }
+            i += take;
+        }
+        return bytes;
+    }
+
+    public long cardinality() {
+        long count = 0;
+        for (int p = 0; p < PAGE_COUNT; p++) {
+            AtomicLongArray page = pages.get(p);
+            if (page == null)
+                continue;
+            for (int i = 0; i < WORDS_PER_PAGE; i++) {
+                count += Long.bitCount(page.get(i));
+            }
+        }
+        return count;
+    }
+
+    private AtomicLongArray page(int pageIndex) {
+        AtomicLongArray page = pages.get(pageIndex);
+        if (page == null) {
+            pages.compareAndSet(pageIndex, null, new AtomicLongArray(WORDS_PER_PAGE));
+            page = pages.get(pageIndex);
+        }
+        return page;
+    }
+
+    private static int wordIndex(int index) {
+        return (index & ((1 << PAGE_SHIFT) - 1)) >>> 6;
+    }
+
+    private static long bit(int index) {
+        return 1L << (index & 63);
+    }
+}
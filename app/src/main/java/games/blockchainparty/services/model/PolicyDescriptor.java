@@ -0,0 +1,69 @@
+package games.blockchainparty.services.model;
+
+import co.nstant.in.cbor.CborDecoder;
+import co.nstant.in.cbor.CborException;
+import co.nstant.in.cbor.model.Array;
+import com.bloxbean.cardano.client.exception.CborDeserializationException;
+import com.bloxbean.cardano.client.exception.CborSerializationException;
+import com.bloxbean.cardano.client.transaction.spec.script.NativeScript;
+import com.bloxbean.cardano.client.util.HexUtil;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static com.bloxbean.cardano.client.crypto.KeyGenUtil.blake2bHash224;
+
+/**
+ * Immutable minting policy with its serialized script, script hash and policy id computed once.
+ * Only the script's CBOR is kept, every {@link #getScript()} decodes a fresh {@link NativeScript} from it.
+ */
+@Getter
+public final class PolicyDescriptor {
+
+    private final byte[] scriptBytes;
+    private final byte[] scriptHash;
+    private final String policyId;
+    private final int requiredSigners;
+
+    private PolicyDescriptor(byte[] scriptBytes, byte[] scriptHash, int requiredSigners) {
+        this.scriptBytes = scriptBytes;
+        this.scriptHash = scriptHash;
+        this.policyId = HexUtil.encodeHexString(scriptHash);
+        this.requiredSigners = requiredSigners;
+    }
+
+    public static PolicyDescriptor of(NativeScript script, int requiredSigners) throws CborSerializationException {
+        byte[] scriptBytes = script.serialize();
+        if (!Arrays.equals(scriptBytes, decode(scriptBytes).serialize()))
+            throw new CborSerializationException("Native script does not survive a CBOR round trip");
+        byte[] finalBytes = ByteBuffer.allocate(1 + scriptBytes.length)
+                .put((byte) 0) //Native script tag
+                .put(scriptBytes)
+                .array();
+        return new PolicyDescriptor(scriptBytes, blake2bHash224(finalBytes), requiredSigners);
+    }
+
+    /**
+     * A new copy of the script, free to attach to a witness set.
+     */
+    public NativeScript getScript() {
+        return decode(scriptBytes);
+    }
+
+    public byte[] getScriptBytes() {
+        return scriptBytes.clone();
+    }
+
+    public byte[] getScriptHash() {
+        return scriptHash.clone();
+    }
+
+    private static NativeScript decode(byte[] scriptBytes) {
+        try {
+            return NativeScript.deserialize((Array) CborDecoder.decode(scriptBytes).get(0));
+        } catch (CborException | CborDeserializationException e) {
+            throw new IllegalStateException("Could not decode native script", e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package games.blockchainparty.services.model;
+
+import com.bloxbean.cardano.client.exception.CborSerializationException;
+import com.bloxbean.cardano.client.transaction.spec.Transaction;
+import com.bloxbean.cardano.client.transaction.spec.TransactionBody;
+import com.bloxbean.cardano.client.transaction.spec.TransactionInput;
+import com.bloxbean.cardano.client.util.HexUtil;
+import games.blockchainparty.services.cbor.CborReader;
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.bloxbean.cardano.client.crypto.KeyGenUtil.blake2bHash256;
+
+/**
+ * Fully witnessed transaction bytes, with the numbers of the build it belongs to and the body fields submission tracking needs.
+ */
+@Getter
+public final class SignedTransaction {
+
+    private static final long MINT = 9;
+
+    private final byte[] bytes;
+    private final String txId;
+    private final List<Integer> numbers;
+    private final long ttl;
+    private final String changeAddress;
+    private final List<TransactionInput> inputs;
+
+    public SignedTransaction(byte[] bytes, List<Integer> numbers, long ttl, String changeAddress, List<TransactionInput> inputs) {
+        this.bytes = bytes;
+        this.txId = txId(bytes);
+        this.numbers = numbers;
+        this.ttl = ttl;
+        this.changeAddress = changeAddress;
+        this.inputs = inputs;
+    }
+
+    public static SignedTransaction of(Transaction transaction, List<Integer> numbers, String changeAddress) throws CborSerializationException {
+        TransactionBody body = transaction.getBody();
+        return new SignedTransaction(transaction.serialize(), numbers, body.getTtl(), changeAddress, body.getInputs());
+    }
+
+    /**
+     * Transaction hash, the blake2b-256 of the body exactly as serialized.
+     */
+    public static String txId(byte[] transactionBytes) {
+        CborReader reader = new CborReader(transactionBytes);
+        reader.readHeader(CborReader.MAJOR_ARRAY);
+        return HexUtil.encodeHexString(blake2bHash256(reader.readItem()));
+    }
+
+    /**
+     * Mint field of the body as policy id -> asset name -> quantity, all hex, decoded straight from the bytes.
+     */
+    public static Map<String, Map<String, Long>> mint(byte[] transactionBytes) {
+        CborReader reader = new CborReader(transactionBytes);
+        reader.readHeader(CborReader.MAJOR_ARRAY);
+        long fields = reader.readHeader(CborReader.MAJOR_MAP);
+        if (fields == CborReader.INDEFINITE)
+            throw new IllegalArgumentException("Indefinite transaction body");
+        Map<String, Map<String, Long>> mint = new HashMap<>();
+        for (long i = 0; i < fields; i++) {
+            if (reader.readHeader(CborReader.MAJOR_UNSIGNED) != MINT) {
+                reader.skip();
+                continue;
+            }
+            long policies = reader.readHeader(CborReader.MAJOR_MAP);
+            for (long p = 0; p < policies; p++) {
+                Map<String, Long> assets = mint.computeIfAbsent(HexUtil.encodeHexString(reader.readBytes()), policyId -> new HashMap<>());
+                long names = reader.readHeader(CborReader.MAJOR_MAP);
+                for (long a = 0; a < names; a++) {
+                    assets.merge(HexUtil.encodeHexString(reader.readBytes()), reader.readLong(), Long::sum);
+                }
+            }
+        }
+        return mint;
+    }
+}
@@ -0,0 +1,39 @@
+package games.blockchainparty.services.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class Submission {
+
+    public enum State {
+        BUILT, QUEUED, SUBMITTED, CONFIRMED, EXPIRED, FAILED;
+
+        public boolean isFinal() {
+            return this == CONFIRMED || this == EXPIRED || this == FAILED;
+        }
+    }
+
+    private String trackingId;
+    private List<Integer> numbers;
+    private String address;
+    private String transaction;
+    /**
+     * Inputs spent by the transaction as tx hash#output index, leased until it is confirmed or dead.
+     */
+    private List<String> inputs;
+    private long ttl;
+    private State state;
+    private String txId;
+    private int attempts;
+    /**
+     * An attempt went unanswered (timeout, 5xx, restart), so the transaction may be in a mempool even if a later attempt was rejected.
+     */
+    private boolean maybeSent;
+    private long updatedAt;
+
+    public Submission() {
+        //Empty Constructor
+    }
+}
@@ -0,0 +1,79 @@
+package games.blockchainparty.services.model;
+
+import com.bloxbean.cardano.client.backend.model.Amount;
+import com.bloxbean.cardano.client.backend.model.Utxo;
+import com.bloxbean.cardano.client.transaction.spec.Asset;
+import com.bloxbean.cardano.client.transaction.spec.MultiAsset;
+import com.bloxbean.cardano.client.transaction.spec.Value;
+import com.bloxbean.cardano.client.util.AssetUtil;
+import com.bloxbean.cardano.client.util.Tuple;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.bloxbean.cardano.client.common.CardanoConstants.LOVELACE;
+
+/**
+ * Mutable sum of UTXO amounts, tokens indexed by policy id and asset name.
+ * Merging is a hash lookup per amount, the {@link Value} is built once when the output is finalized.
+ */
+public final class ValueAccumulator {
+
+    private final Map<String, Map<String, BigInteger>> tokens = new LinkedHashMap<>();
+    private BigInteger coin = BigInteger.ZERO;
+
+    public ValueAccumulator add(Utxo utxo) {
+        for (Amount amount : utxo.getAmount()) {
+            add(amount.getUnit(), amount.getQuantity());
+        }
+        return this;
+    }
+
+    public ValueAccumulator add(String unit, BigInteger quantity) {
+        if (LOVELACE.equals(unit)) {
+            coin = coin.add(quantity);
+        } else {
+            Tuple<String, String> policyIdAssetName = AssetUtil.getPolicyIdAndAssetName(unit);
+            tokens.computeIfAbsent(policyIdAssetName._1, policyId -> new LinkedHashMap<>())
+                    .merge(policyIdAssetName._2, quantity, BigInteger::add);
+        }
+        return this;
+    }
+
+    public ValueAccumulator addCoin(BigInteger quantity) {
+        coin = coin.add(quantity);
+        return this;
+    }
+
+    public BigInteger getCoin() {
+        return coin;
+    }
+
+    public boolean hasTokens() {
+        return !tokens.isEmpty();
+    }
+
+    /**
+     * Tokens grouped by policy, zero quantities and empty policies left out.
+     */
+    public List<MultiAsset> toMultiAssets() {
+        List<MultiAsset> multiAssets = new ArrayList<>(tokens.size());
+        tokens.forEach((policyId, assets) -> {
+            List<Asset> assetList = new ArrayList<>(assets.size());
+            assets.forEach((assetName, quantity) -> {
+                if (quantity.signum() != 0)
+                    assetList.add(new Asset(assetName, quantity));
+            });
+            if (!assetList.isEmpty())
+                multiAssets.add(new MultiAsset(policyId, assetList));
+        });
+        return multiAssets;
+    }
+
+    public Value toValue() {
+        return new Value(coin, toMultiAssets());
+    }
+}
@@ -0,0 +1,10 @@
+package games.blockchainparty.services.selection;
+
+public enum CoinSelectionMode {
+    /** Fewest inputs, biggest UTXOs first. */
+    LARGEST_FIRST,
+    /** CIP-2 random-improve, aims for change of about the requested amount. */
+    RANDOM_IMPROVE,
+    /** Depth-first search for the input set with the least excess over the target. */
+    BRANCH_AND_BOUND
+}
@@ -0,0 +1,321 @@
+package games.blockchainparty.services.selection;
+
+import com.bloxbean.cardano.client.backend.api.UtxoService;
+import com.bloxbean.cardano.client.backend.api.helper.UtxoSelectionStrategy;
+import com.bloxbean.cardano.client.backend.common.OrderEnum;
+import com.bloxbean.cardano.client.backend.exception.ApiException;
+import com.bloxbean.cardano.client.backend.exception.InsufficientBalanceException;
+import com.bloxbean.cardano.client.backend.model.Amount;
+import com.bloxbean.cardano.client.backend.model.Result;
+import com.bloxbean.cardano.client.backend.model.Utxo;
+import com.bloxbean.cardano.client.common.MinAdaCalculator;
+import com.bloxbean.cardano.client.transaction.spec.TransactionOutput;
+import com.bloxbean.cardano.client.transaction.spec.Value;
+import games.blockchainparty.services.model.ValueAccumulator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.bloxbean.cardano.client.common.CardanoConstants.LOVELACE;
+
+/**
+ * {@link UtxoSelectionStrategy} over the whole UTXO set of an address, using the configured {@link CoinSelectionMode}.
+ * Lovelace selections also cover the min-ADA of the change output, which receives every token of the selected UTXOs.
+ * Modes that find no solution within maxInputs fall back to largest-first.
+ * Selections are timed as coin.selection, tagged with the mode and whether the fallback was used.
+ */
+public class CoinSelectionStrategyImpl implements UtxoSelectionStrategy {
+
+    private static final int FETCH_SIZE = 100;
+    private static final int BNB_MAX_TRIES = 100_000;
+    private static final Comparator<Candidate> BY_VALUE_DESC = Comparator.comparingLong((Candidate candidate) -> candidate.value).reversed();
+
+    private final UtxoService utxoService;
+    private final Supplier<MinAdaCalculator> minAdaCalculator;
+    private final CoinSelectionMode mode;
+    private final int maxInputs;
+    private final MeterRegistry meterRegistry;
+    private final Counter pagesFetched;
+    private final DistributionSummary inputsSelected;
+    private boolean ignoreUtxosWithDatumHash = true;
+
+    public CoinSelectionStrategyImpl(UtxoService utxoService, Supplier<MinAdaCalculator> minAdaCalculator, CoinSelectionMode mode, int maxInputs, MeterRegistry meterRegistry) {
+        this.utxoService = utxoService;
+        this.minAdaCalculator = minAdaCalculator;
+        this.mode = mode;
+        this.maxInputs = maxInputs;
+        this.meterRegistry = meterRegistry;
+        this.pagesFetched = meterRegistry.counter("coin.selection.pages");
+        this.inputsSelected = DistributionSummary.builder("coin.selection.inputs").tag("mode", mode.name()).register(meterRegistry);
+    }
+
+    @Override
+    public List<Utxo> selectUtxos(String address, String unit, BigInteger amount, Set<Utxo> excludeUtxos) throws ApiException {
+        return select(address, unit, amount, null, excludeUtxos);
+    }
+
+    @Override
+    public List<Utxo> selectUtxos(String address, String unit, BigInteger amount, String datumHash, Set<Utxo> excludeUtxos) throws ApiException {
+        return select(address, unit, amount, datumHash, excludeUtxos);
+    }
+
+    @Override
+    public boolean ignoreUtxosWithDatumHash() {
+        return ignoreUtxosWithDatumHash;
+    }
+
+    @Override
+    public void setIgnoreUtxosWithDatumHash(boolean ignoreUtxosWithDatumHash) {
+        this.ignoreUtxosWithDatumHash = ignoreUtxosWithDatumHash;
+    }
+
+    private List<Utxo> select(String address, String unit, BigInteger amount, String datumHash, Set<Utxo> excludeUtxos) throws ApiException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "insufficient";
+        try {
+            List<Candidate> candidates = fetchCandidates(address, unit, datumHash, excludeUtxos);
+            Target target = new Target(address, LOVELACE.equals(unit), amount != null ? amount.longValueExact() : 0);
+
+            List<Candidate> selected = null;
+            if (mode == CoinSelectionMode.RANDOM_IMPROVE) {
+                selected = randomImprove(candidates, target);
+            } else if (mode == CoinSelectionMode.BRANCH_AND_BOUND) {
+                selected = branchAndBound(candidates, target);
+            }
+            boolean fallback = selected == null && mode != CoinSelectionMode.LARGEST_FIRST;
+            if (selected == null) {
+                selected = largestFirst(candidates, target);
+            }
+            if (selected == null)
+                throw new InsufficientBalanceException(String.format("Not enough utxos to cover %s %s within %d inputs for address : %s", amount, unit, maxInputs, address));
+            outcome = fallback ? "fallback" : "selected";
+            inputsSelected.record(selected.size());
+            return selected.stream().map(candidate -> candidate.utxo).collect(Collectors.toList());
+        } catch (ApiException e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("coin.selection", "mode", mode.name(), "outcome", outcome));
+        }
+    }
+
+    private List<Candidate> largestFirst(List<Candidate> candidates, Target target) {
+        List<Candidate> sorted = new ArrayList<>(candidates);
+        sorted.sort(BY_VALUE_DESC);
+        List<Candidate> selected = new ArrayList<>();
+        long total = 0;
+        for (Candidate candidate : sorted) {
+            if (selected.size() >= maxInputs)
+                return null;
+            selected.add(candidate);
+            total += candidate.value;
+            if (target.isCovered(selected, total))
+                return selected;
+        }
+        return null;
+    }
+
+    /**
+     * CIP-2: pick at random until the amount is covered, then keep adding random UTXOs while they move the total towards twice the amount.
+     */
+    private List<Candidate> randomImprove(List<Candidate> candidates, Target target) {
+        List<Candidate> pool = new ArrayList<>(candidates);
+        Collections.shuffle(pool, ThreadLocalRandom.current());
+        List<Candidate> selected = new ArrayList<>();
+        long total = 0;
+        int next = 0;
+        while (total < target.amount) {
+            if (next == pool.size() || selected.size() >= maxInputs)
+                return null;
+            Candidate candidate = pool.get(next++);
+            selected.add(candidate);
+            total += candidate.value;
+        }
+
+        long ideal = saturatedMultiply(target.amount, 2);
+        long upperBound = saturatedMultiply(target.amount, 3);
+        for (; next < pool.size() && selected.size() < maxInputs; next++) {
+            Candidate candidate = pool.get(next);
+            long improved = total + candidate.value;
+            if (improved <= upperBound && Math.abs(ideal - improved) < Math.abs(ideal - total)) {
+                selected.add(candidate);
+                total = improved;
+            }
+        }
+        return target.isCovered(selected, total) ? selected : null;
+    }
+
+    /**
+     * Least excess over amount + change min-ADA. Only token-free UTXOs take part, tokens would raise the change min-ADA while searching.
+     */
+    private List<Candidate> branchAndBound(List<Candidate> candidates, Target target) {
+        List<Candidate> sorted = candidates.stream()
+                .filter(candidate -> !target.lovelace || !candidate.hasTokens)
+                .sorted(BY_VALUE_DESC)
+                .collect(Collectors.toList());
+        BranchAndBound search = new BranchAndBound(sorted, target.amount + target.changeMinAda(Collections.emptyList()), maxInputs);
+        search.search(0, 0, 0);
+        if (search.best == null)
+            return null;
+        List<Candidate> selected = new ArrayList<>();
+        long total = 0;
+        for (int index : search.best) {
+            selected.add(sorted.get(index));
+            total += sorted.get(index).value;
+        }
+        return target.isCovered(selected, total) ? selected : null;
+    }
+
+    private List<Candidate> fetchCandidates(String address, String unit, String datumHash, Set<Utxo> excludeUtxos) throws ApiException {
+        List<Candidate> candidates = new ArrayList<>();
+        int page = 1;
+        while (true) {
+            Result<List<Utxo>> result = utxoService.getUtxos(address, FETCH_SIZE, page++, OrderEnum.asc);
+            pagesFetched.increment();
+            if (result.code() != 200)
+                throw new ApiException(String.format("Unable to get enough Utxos for address : %s, reason: %s", address, result.getResponse()));
+            List<Utxo> utxos = result.getValue() != null ? result.getValue() : Collections.emptyList();
+            for (Utxo utxo : utxos) {
+                if (excludeUtxos != null && excludeUtxos.contains(utxo))
+                    continue;
+                boolean hasDatumHash = utxo.getDataHash() != null && !utxo.getDataHash().isEmpty();
+                if (datumHash != null ? !datumHash.equals(utxo.getDataHash()) : hasDatumHash && ignoreUtxosWithDatumHash)
+                    continue;
+                long value = 0;
+                boolean hasTokens = false;
+                for (Amount amount : utxo.getAmount()) {
+                    if (unit.equals(amount.getUnit()))
+                        value += amount.getQuantity().longValueExact();
+                    if (!LOVELACE.equals(amount.getUnit()))
+                        hasTokens = true;
+                }
+                if (value > 0)
+                    candidates.add(new Candidate(utxo, value, hasTokens));
+            }
+            if (utxos.size() < FETCH_SIZE)
+                return candidates;
+        }
+    }
+
+    private static long saturatedMultiply(long value, int factor) {
+        return value > Long.MAX_VALUE / factor ? Long.MAX_VALUE : value * factor;
+    }
+
+    private static final class Candidate {
+
+        private final Utxo utxo;
+        private final long value;
+        private final boolean hasTokens;
+
+        private Candidate(Utxo utxo, long value, boolean hasTokens) {
+            this.utxo = utxo;
+            this.value = value;
+            this.hasTokens = hasTokens;
+        }
+    }
+
+    private final class Target {
+
+        private final String address;
+        private final boolean lovelace;
+        private final long amount;
+        private long adaOnlyChangeMinAda = -1;
+
+        private Target(String address, boolean lovelace, long amount) {
+            this.address = address;
+            this.lovelace = lovelace;
+            this.amount = amount;
+        }
+
+        private boolean isCovered(List<Candidate> selected, long total) {
+            if (total < amount)
+                return false;
+            if (!lovelace)
+                return true;
+            //The token-free min-ADA is a lower bound, only build the token change once that is reached.
+            return total - amount >= changeMinAda(Collections.emptyList()) && total - amount >= changeMinAda(selected);
+        }
+
+        private long changeMinAda(List<Candidate> selected) {
+            MinAdaCalculator calculator = minAdaCalculator.get();
+            if (!lovelace || calculator == null)
+                return 0;
+            boolean hasTokens = selected.stream().anyMatch(candidate -> candidate.hasTokens);
+            if (!hasTokens && adaOnlyChangeMinAda >= 0)
+                return adaOnlyChangeMinAda;
+
+            ValueAccumulator tokens = new ValueAccumulator();
+            for (Candidate candidate : selected) {
+                if (candidate.hasTokens)
+                    tokens.add(candidate.utxo);
+            }
+            TransactionOutput change = TransactionOutput.builder()
+                    .address(address)
+                    .value(new Value(BigInteger.ZERO, tokens.toMultiAssets()))
+                    .build();
+            long minAda = calculator.calculateMinAda(change).longValueExact();
+            if (!hasTokens)
+                adaOnlyChangeMinAda = minAda;
+            return minAda;
+        }
+    }
+
+    private static final class BranchAndBound {
+
+        private final long[] values;
+        private final long[] remaining;
+        private final long target;
+        private final int maxInputs;
+        private final int[] path;
+        private int[] best;
+        private long bestExcess = Long.MAX_VALUE;
+        private int tries;
+
+        private BranchAndBound(List<Candidate> sorted, long target, int maxInputs) {
+            this.values = sorted.stream().mapToLong(candidate -> candidate.value).toArray();
+            this.remaining = new long[values.length + 1];
+            for (int i = values.length - 1; i >= 0; i--) {
+                remaining[i] = remaining[i + 1] + values[i];
+            }
+            this.target = target;
+            this.maxInputs = maxInputs;
+            this.path = new int[Math.max(maxInputs, 0)];
+        }
+
+        /**
+         * Depth-first over include / exclude. Only including recurses, excluding moves on in a loop, so the stack grows with maxInputs and not with the wallet.
+         */
+        private void search(int index, int depth, long sum) {
+            while (true) {
+                if (++tries > BNB_MAX_TRIES || bestExcess == 0)
+                    return;
+                if (sum >= target) { //Adding more can only grow the excess.
+                    long excess = sum - target;
+                    if (excess < bestExcess || (excess == bestExcess && depth < best.length)) {
+                        bestExcess = excess;
+                        best = Arrays.copyOf(path, depth);
+                    }
+                    return;
+                }
+                if (index == values.length || depth == maxInputs || sum + remaining[index] < target)
+                    return;
+
+                path[depth] = index;
+                search(index + 1, depth + 1, sum + values[index]);
+                //Leaving out one of several equal values, the others would only repeat the branch above.
+                int next = index + 1;
+                while (next < values.length && values[next] == values[index]) {
+                    next++;
+                }
+                index = next;
+            }
+        }
+    }
+}
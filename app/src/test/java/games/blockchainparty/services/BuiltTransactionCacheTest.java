@@ -0,0 +1,170 @@
+package games.blockchainparty.services;
+
+import com.bloxbean.cardano.client.account.Account;
+import com.bloxbean.cardano.client.common.model.Networks;
+import com.bloxbean.cardano.client.metadata.cbor.CBORMetadata;
+import com.bloxbean.cardano.client.transaction.spec.*;
+import com.bloxbean.cardano.client.util.HexUtil;
+import games.blockchainparty.config.ConfigProperties;
+import games.blockchainparty.config.Network;
+import games.blockchainparty.services.model.PolicyDescriptor;
+import games.blockchainparty.services.model.SignedTransaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.bloxbean.cardano.client.crypto.KeyGenUtil.blake2bHash256;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuiltTransactionCacheTest {
+
+    private static final List<Integer> NUMBERS = List.of(1, 2);
+    private static final long TTL = 1000;
+
+    @TempDir
+    Path directory;
+
+    private SignerRegistry signerRegistry;
+    private MetadataCatalog metadataCatalog;
+    private BuiltTransactionCache builtTransactionCache;
+    private PolicyDescriptor policy;
+    private Account user;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.writeString(directory.resolve("catalog.json"), "{\"1\": {\"image\": \"ipfs://" + "Qm".repeat(40) + "\", \"traits\": [\"gold\", 7]}}");
+        FilesService filesService = new FilesService(directory);
+        ConfigProperties configProperties = new ConfigProperties();
+        configProperties.setNetwork(Network.TEST_NET);
+        configProperties.setAssetNamePrefix("BlockchainParty");
+        ConfigService configService = new ConfigService(configProperties, filesService);
+        signerRegistry = new SignerRegistry(configService);
+        metadataCatalog = new MetadataCatalog(configService, filesService);
+        builtTransactionCache = new BuiltTransactionCache(signerRegistry, null);
+        policy = configService.getPolicyDescriptor();
+        user = new Account(Networks.testnet());
+    }
+
+    @Test
+    void attachedMetadataMatchesLibrarySerialization() throws Exception {
+        byte[] auxiliaryData = metadataCatalog.getAuxiliaryData(policy.getPolicyId(), NUMBERS);
+        Transaction transaction = unsignedTransaction();
+        transaction.getBody().setAuxiliaryDataHash(blake2bHash256(auxiliaryData));
+        byte[] spliced = MetadataCatalog.attachAuxiliaryData(transaction.serialize(), auxiliaryData);
+
+        Transaction expected = unsignedTransaction();
+        expected.setAuxiliaryData(AuxiliaryData.builder().metadata(CBORMetadata.deserialize(auxiliaryData)).build());
+        assertArrayEquals(expected.serialize(), spliced);
+    }
+
+    @Test
+    void splicedWitnessesMatchFullSigning() throws Exception {
+        byte[] userSigned = user.sign(Transaction.deserialize(build())).serialize();
+
+        Optional<SignedTransaction> completed = builtTransactionCache.complete(userSigned, builtTransactionCache.find(userSigned).orElseThrow());
+
+        assertTrue(completed.isPresent());
+        Transaction expected = signerRegistry.signAsServer(Transaction.deserialize(userSigned));
+        expected.setValid(true);
+        assertArrayEquals(expected.serialize(), completed.get().getBytes());
+        assertEquals(SignedTransaction.of(expected, NUMBERS, user.baseAddress()).getTxId(), completed.get().getTxId());
+        assertEquals(NUMBERS, completed.get().getNumbers());
+        assertEquals(user.baseAddress(), completed.get().getChangeAddress());
+    }
+
+    @Test
+    void findsBuildByBodyHash() throws Exception {
+        byte[] userSigned = user.sign(Transaction.deserialize(build())).serialize();
+
+        BuiltTransactionCache.BuiltTransaction built = builtTransactionCache.find(userSigned).orElseThrow();
+
+        assertEquals(NUMBERS, built.getNumbers());
+        assertEquals(user.baseAddress(), built.getChangeAddress());
+        assertEquals(TTL, built.getTtl());
+    }
+
+    @Test
+    void decodesMintFromBytes() throws Exception {
+        Map<String, Long> assets = Map.of(
+                HexUtil.encodeHexString("BlockchainParty1".getBytes(StandardCharsets.UTF_8)), 1L,
+                HexUtil.encodeHexString("BlockchainParty2".getBytes(StandardCharsets.UTF_8)), 1L);
+
+        assertEquals(Map.of(policy.getPolicyId(), assets), SignedTransaction.mint(build()));
+    }
+
+    @Test
+    void fallsBackForChangedMetadata() throws Exception {
+        Transaction transaction = Transaction.deserialize(build());
+        ((CBORMetadata) transaction.getAuxiliaryData().getMetadata()).put(BigInteger.valueOf(674), "changed");
+        byte[] userSigned = user.sign(transaction).serialize();
+
+        assertTrue(builtTransactionCache.complete(userSigned, builtTransactionCache.find(userSigned).orElseThrow()).isEmpty());
+    }
+
+    @Test
+    void doesNotFindUnknownTransaction() throws Exception {
+        build();
+        Transaction transaction = unsignedTransaction();
+        transaction.getBody().setFee(BigInteger.valueOf(170001));
+        byte[] userSigned = user.sign(transaction).serialize();
+
+        assertTrue(builtTransactionCache.find(userSigned).isEmpty());
+    }
+
+    @Test
+    void restoredBuildIsSignedInFull() throws Exception {
+        byte[] transactionBytes = build();
+        BuiltTransactionCache restored = new BuiltTransactionCache(signerRegistry, null);
+        restored.restore(SignedTransaction.txId(transactionBytes), NUMBERS, user.baseAddress(), TTL);
+        byte[] userSigned = user.sign(Transaction.deserialize(transactionBytes)).serialize();
+
+        BuiltTransactionCache.BuiltTransaction built = restored.find(userSigned).orElseThrow();
+
+        assertEquals(NUMBERS, built.getNumbers());
+        assertTrue(restored.complete(userSigned, built).isEmpty());
+    }
+
+    /**
+     * Serialize a transaction the way MinterService does and cache it.
+     */
+    private byte[] build() throws Exception {
+        byte[] auxiliaryData = metadataCatalog.getAuxiliaryData(policy.getPolicyId(), NUMBERS);
+        Transaction transaction = unsignedTransaction();
+        transaction.getBody().setAuxiliaryDataHash(blake2bHash256(auxiliaryData));
+        byte[] transactionBytes = MetadataCatalog.attachAuxiliaryData(transaction.serialize(), auxiliaryData);
+        builtTransactionCache.put(transactionBytes, NUMBERS, user.baseAddress(), TTL, transaction.getBody().getInputs());
+        return transactionBytes;
+    }
+
+    private Transaction unsignedTransaction() {
+        List<TransactionInput> inputs = List.of(TransactionInput.builder()
+                .transactionId("73198b7ad003862b9798106b88fbccfca464b1a38afb34958275c4a7d7d8d002")
+                .index(1).build());
+        TransactionOutput output = TransactionOutput.builder()
+                .address(user.baseAddress())
+                .value(Value.builder().coin(BigInteger.valueOf(5_000_000)).multiAssets(new ArrayList<>()).build())
+                .build();
+        MultiAsset mint = new MultiAsset();
+        mint.setPolicyId(policy.getPolicyId());
+        NUMBERS.forEach(number -> mint.getAssets().add(new Asset("BlockchainParty" + number, BigInteger.ONE)));
+        TransactionBody body = TransactionBody.builder()
+                .inputs(inputs)
+                .outputs(List.of(output))
+                .mint(List.of(mint))
+                .fee(BigInteger.valueOf(170000))
+                .ttl(TTL)
+                .build();
+        TransactionWitnessSet witnessSet = new TransactionWitnessSet();
+        witnessSet.getNativeScripts().add(policy.getScript());
+        return Transaction.builder().body(body).witnessSet(witnessSet).build();
+    }
+}
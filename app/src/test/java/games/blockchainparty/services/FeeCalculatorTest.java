@@ -0,0 +1,123 @@
+package games.blockchainparty.services;
+
+import com.bloxbean.cardano.client.backend.model.ProtocolParams;
+import com.bloxbean.cardano.client.transaction.spec.Transaction;
+import com.bloxbean.cardano.client.transaction.spec.TransactionBody;
+import com.bloxbean.cardano.client.transaction.spec.TransactionInput;
+import com.bloxbean.cardano.client.transaction.spec.TransactionOutput;
+import com.bloxbean.cardano.client.transaction.spec.TransactionWitnessSet;
+import com.bloxbean.cardano.client.transaction.spec.Value;
+import com.bloxbean.cardano.client.transaction.spec.script.RequireTimeAfter;
+import com.bloxbean.cardano.client.transaction.spec.script.ScriptAll;
+import com.bloxbean.cardano.client.transaction.spec.script.ScriptAny;
+import com.bloxbean.cardano.client.transaction.spec.script.ScriptAtLeast;
+import com.bloxbean.cardano.client.transaction.spec.script.ScriptPubkey;
+import games.blockchainparty.services.backend.SimulatedChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeeCalculatorTest {
+
+    private static final String ADDRESS = "addr_test1qrg3k9zdxcafd72lnvr3899fd9hecgpf2e94gjkvea7e737p9w6dgq763ggc9sjmtps9c7cgst7hahrnw39qjftgdhaqc432g6";
+    private static final ProtocolParams PROTOCOL_PARAMS = SimulatedChain.protocolParams();
+
+    @TempDir
+    Path directory;
+
+    private FeeCalculator feeCalculator;
+
+    @BeforeEach
+    void setUp() {
+        feeCalculator = new FeeCalculator(new ProtocolParamsProvider(null, new ChainSnapshotStore(new FilesService(directory))) {
+            @Override
+            public ProtocolParams getProtocolParams() {
+                return PROTOCOL_PARAMS;
+            }
+        });
+    }
+
+    @Test
+    void feeCoversSizeWithFinalFeeAndChange() throws Exception {
+        for (long changeCoin : new long[]{5_000_000, 1L << 32, (1L << 32) + 100_000, 30_000_000_000L}) {
+            TransactionOutput change = output(changeCoin);
+            Transaction transaction = transaction(3, change);
+
+            BigInteger fee = feeCalculator.applyFee(transaction, change, 2, 0);
+
+            assertEquals(fee, transaction.getBody().getFee());
+            assertEquals(BigInteger.valueOf(changeCoin).subtract(fee), change.getValue().getCoin());
+            assertEquals(requiredFee(transaction.serialize().length + FeeCalculator.witnessSetSize(2)), fee, "change " + changeCoin);
+        }
+    }
+
+    @Test
+    void feeCountsSplicedAuxiliaryData() throws Exception {
+        TransactionOutput plainChange = output(10_000_000);
+        BigInteger plainFee = feeCalculator.applyFee(transaction(1, plainChange), plainChange, 1, 0);
+        TransactionOutput change = output(10_000_000);
+
+        BigInteger fee = feeCalculator.applyFee(transaction(1, change), change, 1, 501);
+
+        assertEquals(plainFee.add(BigInteger.valueOf(PROTOCOL_PARAMS.getMinFeeA() * 500L)), fee);
+    }
+
+    @Test
+    void estimateCoversFeeOfProjectedInputs() throws Exception {
+        for (int inputs = 1; inputs <= 20; inputs++) {
+            TransactionOutput draftChange = output(1L << 32);
+            BigInteger estimate = feeCalculator.estimateFee(transaction(0, draftChange), inputs, 3, 200);
+            TransactionOutput change = output((1L << 32) - 1);
+
+            BigInteger fee = feeCalculator.applyFee(transaction(inputs, change), change, 3, 200);
+
+            assertTrue(estimate.compareTo(fee) >= 0, inputs + " inputs");
+            assertTrue(estimate.subtract(fee).longValue() <= PROTOCOL_PARAMS.getMinFeeA() * (inputs * 3L + 4), inputs + " inputs");
+        }
+    }
+
+    @Test
+    void countsSignersOfNativeScripts() {
+        ScriptPubkey key = new ScriptPubkey("00".repeat(28));
+        ScriptAll all = new ScriptAll();
+        all.addScript(key);
+        all.addScript(key);
+        all.addScript(new RequireTimeAfter(1));
+        ScriptAny any = new ScriptAny();
+        any.addScript(key);
+        any.addScript(all);
+        ScriptAtLeast atLeast = new ScriptAtLeast(2);
+        atLeast.addScript(key);
+        atLeast.addScript(all);
+        atLeast.addScript(any);
+
+        assertEquals(2, FeeCalculator.requiredSigners(all));
+        assertEquals(2, FeeCalculator.requiredSigners(any));
+        assertEquals(4, FeeCalculator.requiredSigners(atLeast));
+    }
+
+    private BigInteger requiredFee(long size) {
+        return BigInteger.valueOf(PROTOCOL_PARAMS.getMinFeeA()).multiply(BigInteger.valueOf(size)).add(BigInteger.valueOf(PROTOCOL_PARAMS.getMinFeeB()));
+    }
+
+    private static Transaction transaction(int inputCount, TransactionOutput change) {
+        List<TransactionInput> inputs = new ArrayList<>();
+        for (int i = 0; i < inputCount; i++) {
+            inputs.add(TransactionInput.builder().transactionId(String.format("%064x", i)).index(i * 300).build());
+        }
+        List<TransactionOutput> outputs = new ArrayList<>(List.of(change, output(2_000_000)));
+        TransactionBody body = TransactionBody.builder().inputs(inputs).outputs(outputs).fee(BigInteger.ZERO).ttl(50_000_000).build();
+        return Transaction.builder().body(body).witnessSet(new TransactionWitnessSet()).build();
+    }
+
+    private static TransactionOutput output(long coin) {
+        return TransactionOutput.builder().address(ADDRESS).value(new Value(BigInteger.valueOf(coin), new ArrayList<>())).build();
+    }
+}
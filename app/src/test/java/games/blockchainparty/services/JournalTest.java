@@ -0,0 +1,103 @@
+package games.blockchainparty.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysAppendedRecords() throws IOException {
+        Path path = directory.resolve("test.journal");
+        write(path, "1 a", "2 b", "3 c");
+
+        assertEquals(List.of("1 a", "2 b", "3 c"), replay(path));
+    }
+
+    @Test
+    void cutsOffRecordTornMidPayload() throws IOException {
+        Path path = directory.resolve("test.journal");
+        write(path, "1 a", "2 b");
+        long intact = Files.size(path);
+        write(path, "3 c");
+        truncate(path, Files.size(path) - 2);
+
+        assertEquals(List.of("1 a", "2 b"), replay(path));
+        assertEquals(intact, Files.size(path));
+
+        write(path, "4 d");
+        assertEquals(List.of("1 a", "2 b", "4 d"), replay(path));
+    }
+
+    @Test
+    void cutsOffRecordTornMidHeader() throws IOException {
+        Path path = directory.resolve("test.journal");
+        write(path, "1 a");
+        long intact = Files.size(path);
+        write(path, "2 b");
+        truncate(path, intact + 3);
+
+        assertEquals(List.of("1 a"), replay(path));
+        assertEquals(intact, Files.size(path));
+    }
+
+    @Test
+    void cutsOffRecordWithBadChecksum() throws IOException {
+        Path path = directory.resolve("test.journal");
+        write(path, "1 a", "2 b");
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            file.write('x');
+        }
+
+        assertEquals(List.of("1 a"), replay(path));
+    }
+
+    @Test
+    void appendsAfterRewrite() throws IOException {
+        Path path = directory.resolve("test.journal");
+        try (Journal journal = Journal.open(path, record -> { })) {
+            journal.appendDurably(bytes("1 a"));
+            journal.rewrite(List.of(bytes("2 b")));
+            journal.appendDurably(bytes("3 c"));
+        }
+
+        assertEquals(List.of("2 b", "3 c"), replay(path));
+    }
+
+    private static void write(Path path, String... records) throws IOException {
+        try (Journal journal = Journal.open(path, record -> { })) {
+            for (String record : records) {
+                journal.appendDurably(bytes(record));
+            }
+        }
+    }
+
+    private static List<String> replay(Path path) throws IOException {
+        List<String> records = new ArrayList<>();
+        Journal.open(path, record -> records.add(new String(record, StandardCharsets.UTF_8))).close();
+        return records;
+    }
+
+    private static void truncate(Path path, long size) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(size);
+        }
+    }
+
+    private static byte[] bytes(String record) {
+        return record.getBytes(StandardCharsets.UTF_8);
+    }
+}
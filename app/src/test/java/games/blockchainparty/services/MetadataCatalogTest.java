@@ -0,0 +1,107 @@
+package games.blockchainparty.services;
+
+import co.nstant.in.cbor.CborDecoder;
+import co.nstant.in.cbor.model.Array;
+import co.nstant.in.cbor.model.DataItem;
+import co.nstant.in.cbor.model.Map;
+import co.nstant.in.cbor.model.UnicodeString;
+import co.nstant.in.cbor.model.UnsignedInteger;
+import games.blockchainparty.config.ConfigProperties;
+import games.blockchainparty.config.Network;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetadataCatalogTest {
+
+    private static final String POLICY_ID = "ab".repeat(28);
+    private static final String LONG_PREFIX = "BlockchainParty".repeat(5);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void compilesEntriesAndChunksLongStrings() throws Exception {
+        String image = "ipfs://" + "Qm".repeat(40);
+        catalog("{\"1\": {\"name\": \"One\", \"image\": \"" + image + "\", \"traits\": [\"a\", 2]}}");
+
+        MetadataCatalog metadataCatalog = new MetadataCatalog(configService("BlockchainParty"), new FilesService(directory));
+        Map asset = asset(metadataCatalog.getAuxiliaryData(POLICY_ID, List.of(1)), "BlockchainParty1");
+
+        assertEquals(new UnicodeString("One"), asset.get(new UnicodeString("name")));
+        assertEquals(image, join(asset.get(new UnicodeString("image"))));
+        Array traits = (Array) asset.get(new UnicodeString("traits"));
+        assertEquals(List.of(new UnicodeString("a"), new UnsignedInteger(2)), traits.getDataItems());
+    }
+
+    @Test
+    void chunksLongDefaultNames() throws Exception {
+        catalog("{\"1\": {\"image\": \"ipfs://x\"}}");
+
+        MetadataCatalog metadataCatalog = new MetadataCatalog(configService(LONG_PREFIX), new FilesService(directory));
+        byte[] auxiliaryData = metadataCatalog.getAuxiliaryData(POLICY_ID, List.of(1, 2));
+
+        assertEquals(LONG_PREFIX + 1, join(asset(auxiliaryData, LONG_PREFIX + 1).get(new UnicodeString("name"))), "compiled into the catalog");
+        assertEquals(LONG_PREFIX + 2, join(asset(auxiliaryData, LONG_PREFIX + 2).get(new UnicodeString("name"))), "written for a number missing from it");
+    }
+
+    @Test
+    void rejectsEntryThatIsNotAnObject() throws Exception {
+        catalog("{\"1\": {\"name\": \"One\"}, \"2\": \"Two\"}");
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> new MetadataCatalog(configService("BlockchainParty"), new FilesService(directory)));
+
+        assertTrue(e.getCause() instanceof IOException);
+        assertTrue(e.getCause().getMessage().contains("\"2\""), e.getCause().getMessage());
+    }
+
+    @Test
+    void rejectsKeyThatIsNotANumber() throws Exception {
+        catalog("{\"one\": {\"name\": \"One\"}}");
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> new MetadataCatalog(configService("BlockchainParty"), new FilesService(directory)));
+
+        assertTrue(e.getCause().getMessage().contains("\"one\""), e.getCause().getMessage());
+    }
+
+    private void catalog(String json) throws IOException {
+        Files.write(directory.resolve("catalog.json"), json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ConfigService configService(String assetNamePrefix) {
+        ConfigProperties configProperties = new ConfigProperties();
+        configProperties.setNetwork(Network.TEST_NET);
+        configProperties.setAssetNamePrefix(assetNamePrefix);
+        return new ConfigService(configProperties, new FilesService(directory));
+    }
+
+    private static Map asset(byte[] auxiliaryData, String assetName) throws Exception {
+        Map metadata = (Map) CborDecoder.decode(auxiliaryData).get(0);
+        Map policies = (Map) metadata.get(new UnsignedInteger(721));
+        Map assets = (Map) policies.get(new UnicodeString(POLICY_ID));
+        return (Map) assets.get(new UnicodeString(assetName));
+    }
+
+    /**
+     * A metadata string, checking every chunk of a chunked one fits the 64 byte limit.
+     */
+    private static String join(DataItem item) {
+        if (item instanceof UnicodeString)
+            return ((UnicodeString) item).getString();
+        StringBuilder text = new StringBuilder();
+        for (DataItem chunk : ((Array) item).getDataItems()) {
+            String part = ((UnicodeString) chunk).getString();
+            assertTrue(part.getBytes(StandardCharsets.UTF_8).length <= 64);
+            text.append(part);
+        }
+        assertTrue(((Array) item).getDataItems().size() > 1);
+        return text.toString();
+    }
+}
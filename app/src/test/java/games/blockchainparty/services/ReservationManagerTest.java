@@ -0,0 +1,190 @@
+package games.blockchainparty.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationManagerTest {
+
+    private static final String ALICE = "alice";
+    private static final String BOB = "bob";
+    private static final long MARGIN = 600;
+
+    @TempDir
+    Path directory;
+
+    private TestSlotClock slotClock;
+    private ReservationManager reservationManager;
+
+    @BeforeEach
+    void setUp() {
+        slotClock = new TestSlotClock(directory, 1_000);
+        reservationManager = new ReservationManager(slotClock, MARGIN);
+    }
+
+    @Test
+    void refusesNumberHeldByAnotherUser() throws Exception {
+        assertTrue(reservationManager.reserve(List.of(1, 2), ALICE).isPresent());
+
+        assertTrue(reservationManager.reserve(List.of(3, 2), BOB).isEmpty());
+        assertTrue(reservationManager.reserve(List.of(3), BOB).isPresent(), "a refused batch keeps none of its numbers");
+    }
+
+    @Test
+    void letsSameUserRebuild() throws Exception {
+        assertTrue(reservationManager.reserve(List.of(1), ALICE).isPresent());
+
+        assertTrue(reservationManager.reserve(List.of(1), ALICE).isPresent());
+    }
+
+    @Test
+    void handsOutExpiredReservations() throws Exception {
+        assertTrue(reservationManager.reserve(List.of(1), ALICE).isPresent());
+
+        slotClock.advance(MinterService.TTL_SLOTS + 1);
+
+        assertTrue(reservationManager.reserve(List.of(1), BOB).isPresent());
+    }
+
+    @Test
+    void purgeDropsOnlyExpiredReservations() throws Exception {
+        assertTrue(reservationManager.reserve(List.of(1), ALICE).isPresent());
+        slotClock.advance(MinterService.TTL_SLOTS / 2);
+        assertTrue(reservationManager.reserve(List.of(2), ALICE).isPresent());
+        slotClock.advance(MinterService.TTL_SLOTS / 2 + 1);
+
+        reservationManager.purgeExpired();
+
+        assertTrue(reservationManager.reserve(List.of(1), BOB).isPresent());
+        assertTrue(reservationManager.reserve(List.of(2), BOB).isEmpty());
+    }
+
+    @Test
+    void releaseLeavesReservationTakenOverSince() throws Exception {
+        Optional<List<ReservationManager.Reservation>> stale = reservationManager.reserve(List.of(1), ALICE);
+        slotClock.advance(MinterService.TTL_SLOTS + 1);
+        assertTrue(reservationManager.reserve(List.of(1), BOB).isPresent());
+
+        reservationManager.release(stale.orElseThrow());
+
+        assertTrue(reservationManager.reserve(List.of(1), ALICE).isEmpty());
+    }
+
+    @Test
+    void releaseLeavesRebuildOfSameUser() throws Exception {
+        Optional<List<ReservationManager.Reservation>> first = reservationManager.reserve(List.of(1), ALICE);
+        assertTrue(reservationManager.reserve(List.of(1), ALICE).isPresent());
+
+        reservationManager.release(first.orElseThrow());
+
+        assertTrue(reservationManager.reserve(List.of(1), BOB).isEmpty());
+    }
+
+    @Test
+    void releaseByHolderLeavesOtherUsers() throws Exception {
+        assertTrue(reservationManager.reserve(List.of(1), ALICE).isPresent());
+
+        reservationManager.release(List.of(1), BOB);
+        assertTrue(reservationManager.reserve(List.of(1), BOB).isEmpty());
+
+        reservationManager.release(List.of(1), ALICE);
+        assertTrue(reservationManager.reserve(List.of(1), BOB).isPresent());
+    }
+
+    @Test
+    void submitsOnlyOncePerNumber() throws Exception {
+        assertTrue(reservationManager.reserve(List.of(1), ALICE).isPresent());
+
+        assertTrue(reservationManager.beginSubmit(List.of(1), ALICE, number -> null));
+        assertFalse(reservationManager.beginSubmit(List.of(1), ALICE, number -> null));
+        assertTrue(reservationManager.reserve(List.of(1), ALICE).isEmpty(), "a submitting number cannot be rebuilt");
+
+        reservationManager.abortSubmit(List.of(1), ALICE);
+        assertTrue(reservationManager.beginSubmit(List.of(1), ALICE, number -> null));
+    }
+
+    @Test
+    void submitNeedsReservationOrJournaledBuild() throws Exception {
+        assertFalse(reservationManager.beginSubmit(List.of(1), ALICE, number -> null));
+        assertFalse(reservationManager.beginSubmit(List.of(1), ALICE, number -> BOB));
+
+        assertTrue(reservationManager.beginSubmit(List.of(1), ALICE, Map.of(1, ALICE)::get));
+    }
+
+    @Test
+    void submittingOutlivesTtlByMargin() throws Exception {
+        assertTrue(reservationManager.reserve(List.of(1), ALICE).isPresent());
+        assertTrue(reservationManager.beginSubmit(List.of(1), ALICE, number -> null));
+
+        slotClock.advance(MinterService.TTL_SLOTS + 1);
+        assertTrue(reservationManager.reserve(List.of(1), BOB).isEmpty());
+
+        slotClock.advance(MARGIN);
+        assertTrue(reservationManager.reserve(List.of(1), BOB).isPresent());
+    }
+
+    @Test
+    void submitsBatchAllOrNone() throws Exception {
+        assertTrue(reservationManager.reserve(List.of(1, 2), ALICE).isPresent());
+        assertTrue(reservationManager.reserve(List.of(3), BOB).isPresent());
+
+        assertFalse(reservationManager.beginSubmit(List.of(1, 2, 3), ALICE, number -> null));
+
+        assertTrue(reservationManager.beginSubmit(List.of(1, 2), ALICE, number -> null), "the refused batch left 1 and 2 built");
+    }
+
+    @Test
+    void restoresReservationsAfterRestart() throws Exception {
+        reservationManager.restore(List.of(1), ALICE, 1_500, false);
+        reservationManager.restore(List.of(2), ALICE, 1_500, true);
+
+        assertTrue(reservationManager.reserve(List.of(1), BOB).isEmpty());
+        assertTrue(reservationManager.beginSubmit(List.of(1), ALICE, number -> null));
+        assertFalse(reservationManager.beginSubmit(List.of(2), ALICE, number -> null), "restored as submitting");
+
+        reservationManager.restore(List.of(1), BOB, 5_000, false);
+        assertTrue(reservationManager.reserve(List.of(1), BOB).isEmpty(), "a restore never takes a live reservation");
+    }
+
+    @Test
+    void contendedNumberGoesToExactlyOneUser() throws Exception {
+        int users = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(users);
+        try {
+            for (int number = 0; number < 200; number++) {
+                int contended = number;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int user = 0; user < users; user++) {
+                    String userAddr = "user" + user;
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return reservationManager.reserve(List.of(contended), userAddr).isPresent();
+                    }));
+                }
+                start.countDown();
+                int winners = 0;
+                for (Future<Boolean> result : results) {
+                    if (result.get(10, TimeUnit.SECONDS))
+                        winners++;
+                }
+                assertEquals(1, winners);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package games.blockchainparty.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.nio.file.Path;
+
+/**
+ * Slot clock the test moves by hand.
+ */
+class TestSlotClock extends SlotClock {
+
+    private long currentSlot;
+
+    TestSlotClock(Path directory, long currentSlot) {
+        super(null, new ChainSnapshotStore(new FilesService(directory)), new SimpleMeterRegistry());
+        this.currentSlot = currentSlot;
+    }
+
+    @Override
+    public long getCurrentSlot() {
+        return currentSlot;
+    }
+
+    @Override
+    public boolean isSynced() {
+        return true;
+    }
+
+    void advance(long slots) {
+        currentSlot += slots;
+    }
+}
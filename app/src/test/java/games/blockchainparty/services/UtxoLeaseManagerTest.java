@@ -0,0 +1,181 @@
+package games.blockchainparty.services;
+
+import com.bloxbean.cardano.client.backend.model.Amount;
+import com.bloxbean.cardano.client.backend.model.Utxo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.bloxbean.cardano.client.common.CardanoConstants.LOVELACE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class UtxoLeaseManagerTest {
+
+    private static final long EXPIRY = 2_000;
+
+    @TempDir
+    Path directory;
+
+    private TestSlotClock slotClock;
+    private UtxoLeaseManager leaseManager;
+
+    @BeforeEach
+    void setUp() {
+        slotClock = new TestSlotClock(directory, 1_000);
+        leaseManager = new UtxoLeaseManager(slotClock, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void leasesAllOrNone() throws Exception {
+        assertTrue(leaseManager.lease("a", List.of(utxo(1), utxo(2)), EXPIRY));
+
+        assertFalse(leaseManager.lease("b", List.of(utxo(3), utxo(2)), EXPIRY));
+        assertTrue(leaseManager.lease("b", List.of(utxo(3)), EXPIRY), "a refused lease keeps none of its inputs");
+        assertEquals(3, leaseManager.size());
+    }
+
+    @Test
+    void holderRenewsOwnLeases() throws Exception {
+        assertTrue(leaseManager.lease("a", List.of(utxo(1)), EXPIRY));
+
+        assertTrue(leaseManager.lease("a", List.of(utxo(1), utxo(2)), EXPIRY + 100));
+        slotClock.advance(EXPIRY - 1_000 + 50);
+        assertFalse(leaseManager.lease("b", List.of(utxo(1)), EXPIRY));
+    }
+
+    @Test
+    void expiredLeaseCanBeTaken() throws Exception {
+        assertTrue(leaseManager.lease("a", List.of(utxo(1)), EXPIRY));
+
+        slotClock.advance(EXPIRY);
+
+        assertTrue(leaseManager.lease("b", List.of(utxo(1)), EXPIRY * 2));
+        assertTrue(leaseManager.leasedByOthers("a").contains(utxo(1)));
+    }
+
+    @Test
+    void exclusionSetShowsOnlyLiveLeasesOfOthers() throws Exception {
+        assertTrue(leaseManager.lease("a", List.of(utxo(1), utxo(2)), EXPIRY));
+        assertTrue(leaseManager.lease("b", List.of(utxo(3)), EXPIRY + 500));
+
+        Set<Utxo> excluded = leaseManager.leasedByOthers("b");
+        assertTrue(excluded.contains(utxo(1)));
+        assertFalse(excluded.contains(utxo(3)));
+        assertFalse(excluded.contains(utxo(4)));
+        assertFalse(excluded.contains("not a utxo"));
+        assertEquals(2, excluded.size());
+        assertEquals(Set.of(utxo(1), utxo(2)), new HashSet<>(excluded));
+
+        slotClock.advance(EXPIRY - 1_000 + 1);
+        assertTrue(leaseManager.leasedByOthers("b").isEmpty(), "a view taken after expiry");
+        assertEquals(Set.of(utxo(3)), new HashSet<>(leaseManager.leasedByOthers("a")));
+    }
+
+    @Test
+    void exclusionMatchesByReferenceOnly() throws Exception {
+        assertTrue(leaseManager.lease("a", List.of(utxo(1)), EXPIRY));
+
+        Utxo sameRef = Utxo.builder().txHash(txHash(1)).outputIndex(0).build();
+
+        assertTrue(leaseManager.leasedByOthers("b").contains(sameRef));
+    }
+
+    @Test
+    void releaseByHolderLeavesLeasesMovedOn() throws Exception {
+        assertTrue(leaseManager.lease("a", List.of(utxo(1), utxo(2)), EXPIRY));
+        leaseManager.hold("queued", List.of(ref(2)), EXPIRY);
+
+        leaseManager.release("a", List.of(ref(1), ref(2)));
+
+        assertFalse(leaseManager.leasedByOthers("b").contains(utxo(1)));
+        assertTrue(leaseManager.leasedByOthers("b").contains(utxo(2)));
+
+        leaseManager.release(List.of(ref(2)));
+        assertEquals(0, leaseManager.size());
+    }
+
+    @Test
+    void holdTakesInputsUnconditionally() throws Exception {
+        assertTrue(leaseManager.lease("a", List.of(utxo(1)), EXPIRY));
+
+        leaseManager.hold("queued", List.of(ref(1), ref(7)), EXPIRY + 600);
+
+        assertFalse(leaseManager.lease("a", List.of(utxo(1)), EXPIRY));
+        Set<Utxo> excluded = new HashSet<>(leaseManager.leasedByOthers("a"));
+        assertTrue(excluded.contains(utxo(1)));
+        assertTrue(leaseManager.leasedByOthers("a").contains(utxo(7)), "held after a restart from the ref alone");
+    }
+
+    @Test
+    void purgeDropsExpiredLeases() throws Exception {
+        assertTrue(leaseManager.lease("a", List.of(utxo(1)), EXPIRY));
+        assertTrue(leaseManager.lease("a", List.of(utxo(2)), EXPIRY + 10));
+
+        slotClock.advance(EXPIRY - 1_000 + 1);
+        leaseManager.purgeExpired();
+
+        assertEquals(1, leaseManager.size());
+    }
+
+    @Test
+    void concurrentBuildsNeverShareInputs() throws Exception {
+        List<Utxo> wallet = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            wallet.add(utxo(i));
+        }
+        int builds = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(builds);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<Utxo>>> results = new ArrayList<>();
+            for (int b = 0; b < builds; b++) {
+                String holder = "build" + b;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    List<Utxo> won = new ArrayList<>();
+                    for (int i = 0; i < wallet.size(); i += 2) {
+                        List<Utxo> pair = wallet.subList(i, i + 2);
+                        if (leaseManager.lease(holder, pair, EXPIRY))
+                            won.addAll(pair);
+                    }
+                    return won;
+                }));
+            }
+            start.countDown();
+            Set<Utxo> seen = new HashSet<>();
+            for (Future<List<Utxo>> result : results) {
+                for (Utxo utxo : result.get(30, TimeUnit.SECONDS)) {
+                    assertTrue(seen.add(utxo), "leased twice: " + utxo.getTxHash());
+                }
+            }
+            assertEquals(wallet.size(), seen.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Utxo utxo(int i) {
+        return new Utxo(txHash(i), 0, List.of(new Amount(LOVELACE, BigInteger.valueOf(2_000_000))), null);
+    }
+
+    private static String ref(int i) {
+        return UtxoLeaseManager.ref(txHash(i), 0);
+    }
+
+    private static String txHash(int i) {
+        return String.format("%064x", i);
+    }
+}
@@ -0,0 +1,180 @@
+package games.blockchainparty.services.backend;
+
+import com.bloxbean.cardano.client.backend.model.Block;
+import com.bloxbean.cardano.client.backend.model.Result;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GatewayBackendServiceTest {
+
+    private static final String ADDRESS = "addr_test1";
+
+    @Test
+    void servesRepeatedReadsFromCacheWithinTtl() throws Exception {
+        StubBackendService backend = new StubBackendService((method, args) -> Results.success(new Block()));
+        GatewayBackendService gateway = gateway(backend, 100, 100, 0, 60_000);
+
+        Result<Block> first = gateway.getBlockService().getLastestBlock();
+        Result<Block> second = gateway.getBlockService().getLastestBlock();
+        gateway.getBlockService().getBlockByNumber(BigInteger.ONE);
+        gateway.getBlockService().getBlockByNumber(BigInteger.TWO);
+        gateway.getBlockService().getBlockByNumber(BigInteger.ONE);
+
+        assertSame(first, second);
+        assertEquals(1, backend.calls("getLastestBlock"));
+        assertEquals(2, backend.calls("getBlockByNumber"), "arguments are part of the key");
+    }
+
+    @Test
+    void callsAgainOnceTtlPassed() throws Exception {
+        StubBackendService backend = new StubBackendService((method, args) -> Results.success(new Block()));
+        GatewayBackendService gateway = gateway(backend, 100, 100, 0, 20);
+
+        gateway.getBlockService().getLastestBlock();
+        Thread.sleep(50);
+        gateway.getBlockService().getLastestBlock();
+
+        assertEquals(2, backend.calls("getLastestBlock"));
+    }
+
+    @Test
+    void doesNotCacheFailures() throws Exception {
+        StubBackendService backend = new StubBackendService((method, args) -> Results.error("Bad gateway", 502));
+        GatewayBackendService gateway = gateway(backend, 100, 100, 0, 60_000);
+
+        assertEquals(502, gateway.getBlockService().getLastestBlock().code());
+        assertEquals(502, gateway.getBlockService().getLastestBlock().code());
+
+        assertEquals(2, backend.calls("getLastestBlock"));
+    }
+
+    @Test
+    void coalescesConcurrentIdenticalReads() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StubBackendService backend = new StubBackendService((method, args) -> {
+            entered.countDown();
+            release.await();
+            return Results.success(new Block());
+        });
+        GatewayBackendService gateway = gateway(backend, 100, 100, 0, 0);
+        int readers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(readers);
+        try {
+            List<Future<Result<Block>>> results = new ArrayList<>();
+            for (int i = 0; i < readers; i++) {
+                results.add(executor.submit(() -> gateway.getBlockService().getLastestBlock()));
+            }
+            assertTrue(entered.await(10, TimeUnit.SECONDS));
+            Thread.sleep(200); //Let the other readers line up behind the call in flight
+            release.countDown();
+
+            Result<Block> first = results.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<Result<Block>> result : results) {
+                assertSame(first, result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, backend.calls("getLastestBlock"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void propagatesExceptionToCoalescedReaders() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StubBackendService backend = new StubBackendService((method, args) -> {
+            entered.countDown();
+            release.await();
+            throw new IllegalStateException("connection reset");
+        });
+        GatewayBackendService gateway = gateway(backend, 100, 100, 0, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> leader = executor.submit(() -> gateway.getBlockService().getLastestBlock());
+            assertTrue(entered.await(10, TimeUnit.SECONDS));
+            Future<?> follower = executor.submit(() -> gateway.getBlockService().getLastestBlock());
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<?> result : List.of(leader, follower)) {
+                Exception e = assertThrows(Exception.class, () -> result.get(10, TimeUnit.SECONDS));
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+            assertEquals(1, backend.calls("getLastestBlock"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void answers429LocallyWhenBudgetIsSpent() throws Exception {
+        StubBackendService backend = new StubBackendService((method, args) -> Results.success(new Block()));
+        GatewayBackendService gateway = gateway(backend, 0.001, 2, 0, 0);
+
+        assertTrue(gateway.getBlockService().getBlockByNumber(BigInteger.ONE).isSuccessful());
+        assertTrue(gateway.getBlockService().getBlockByNumber(BigInteger.TWO).isSuccessful());
+        Result<Block> throttled = gateway.getBlockService().getBlockByNumber(BigInteger.TEN);
+
+        assertEquals(429, throttled.code());
+        assertEquals(2, backend.calls("getBlockByNumber"));
+    }
+
+    @Test
+    void waitsForTokenUpToMaxWait() throws Exception {
+        StubBackendService backend = new StubBackendService((method, args) -> Results.success(new Block()));
+        GatewayBackendService gateway = gateway(backend, 20, 1, 1_000, 0);
+
+        long start = System.nanoTime();
+        gateway.getBlockService().getBlockByNumber(BigInteger.ONE);
+        Result<Block> second = gateway.getBlockService().getBlockByNumber(BigInteger.TWO);
+
+        assertTrue(second.isSuccessful());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30), "the second call waited for a refill");
+        assertEquals(2, backend.calls("getBlockByNumber"));
+    }
+
+    @Test
+    void remote429DrainsLocalBudget() throws Exception {
+        StubBackendService backend = new StubBackendService((method, args) -> Results.error("Too many requests", 429));
+        GatewayBackendService gateway = gateway(backend, 0.001, 10, 0, 0);
+
+        gateway.getBlockService().getLastestBlock();
+        Result<Block> local = gateway.getBlockService().getLastestBlock();
+
+        assertEquals(429, local.code());
+        assertEquals(1, backend.calls("getLastestBlock"));
+    }
+
+    @Test
+    void submitsAreNeitherCachedNorCoalescedAndInvalidateUtxoPages() throws Exception {
+        StubBackendService backend = new StubBackendService((method, args) -> "submitTransaction".equals(method) ? Results.success("txid") : Results.success(new ArrayList<>()));
+        GatewayBackendService gateway = gateway(backend, 100, 100, 0, 60_000);
+
+        gateway.getUtxoService().getUtxos(ADDRESS, 100, 1);
+        gateway.getUtxoService().getUtxos(ADDRESS, 100, 1);
+        assertEquals(1, backend.calls("getUtxos"));
+
+        gateway.getTransactionService().submitTransaction(new byte[]{1});
+        gateway.getTransactionService().submitTransaction(new byte[]{1});
+        gateway.getUtxoService().getUtxos(ADDRESS, 100, 1);
+
+        assertEquals(2, backend.calls("submitTransaction"));
+        assertEquals(2, backend.calls("getUtxos"));
+    }
+
+    private static GatewayBackendService gateway(StubBackendService backend, double ratePerSecond, int burst, long maxWaitMillis, long cacheTtlMillis) {
+        return new GatewayBackendService(backend, "stub", ratePerSecond, burst, maxWaitMillis, cacheTtlMillis, new SimpleMeterRegistry());
+    }
+}
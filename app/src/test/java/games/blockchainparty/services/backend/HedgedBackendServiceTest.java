@@ -0,0 +1,166 @@
+package games.blockchainparty.services.backend;
+
+import com.bloxbean.cardano.client.backend.api.BackendService;
+import com.bloxbean.cardano.client.backend.model.Block;
+import com.bloxbean.cardano.client.backend.model.Result;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgedBackendServiceTest {
+
+    private static final byte[] TRANSACTION = {1, 2, 3};
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HedgedBackendService hedged;
+
+    @AfterEach
+    void tearDown() {
+        if (hedged != null) {
+            hedged.close();
+        }
+    }
+
+    @Test
+    void readFailsOverOnServerError() throws Exception {
+        StubBackendService primary = new StubBackendService((method, args) -> Results.error("Unavailable", 503));
+        StubBackendService secondary = new StubBackendService((method, args) -> Results.success(new Block()));
+        hedged = hedged(primary, secondary, 1_000);
+
+        Result<Block> result = hedged.getBlockService().getLastestBlock();
+
+        assertTrue(result.isSuccessful());
+        assertEquals(1, primary.calls("getLastestBlock"));
+        assertEquals(1, secondary.calls("getLastestBlock"));
+        assertEquals(1, meterRegistry.counter("backend.failovers").count());
+    }
+
+    @Test
+    void readFailsOverOnException() throws Exception {
+        StubBackendService primary = new StubBackendService((method, args) -> {
+            throw new IllegalStateException("connection reset");
+        });
+        StubBackendService secondary = new StubBackendService((method, args) -> Results.success(new Block()));
+        hedged = hedged(primary, secondary, 1_000);
+
+        assertTrue(hedged.getBlockService().getLastestBlock().isSuccessful());
+    }
+
+    @Test
+    void notFoundIsAnAnswer() throws Exception {
+        StubBackendService primary = new StubBackendService((method, args) -> Results.error("Not found", 404));
+        StubBackendService secondary = new StubBackendService((method, args) -> Results.success(new Block()));
+        hedged = hedged(primary, secondary, 1_000);
+
+        assertEquals(404, hedged.getBlockService().getLastestBlock().code());
+        assertEquals(0, secondary.calls("getLastestBlock"));
+    }
+
+    @Test
+    void hedgesSlowRead() throws Exception {
+        StubBackendService primary = new StubBackendService((method, args) -> {
+            Thread.sleep(2_000);
+            return Results.success(new Block());
+        });
+        Block fast = new Block();
+        StubBackendService secondary = new StubBackendService((method, args) -> Results.success(fast));
+        hedged = hedged(primary, secondary, 20);
+
+        long start = System.nanoTime();
+        Result<Block> result = hedged.getBlockService().getLastestBlock();
+
+        assertSame(fast, result.getValue());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1_500));
+        assertEquals(1, meterRegistry.counter("backend.hedges").count());
+    }
+
+    @Test
+    void returnsLastFailureWhenAllProvidersFail() throws Exception {
+        StubBackendService primary = new StubBackendService((method, args) -> Results.error("Unavailable", 503));
+        StubBackendService secondary = new StubBackendService((method, args) -> Results.error("Bad gateway", 502));
+        hedged = hedged(primary, secondary, 1_000);
+
+        assertEquals(502, hedged.getBlockService().getLastestBlock().code());
+    }
+
+    @Test
+    void submitStaysOnProviderAfterServerError() throws Exception {
+        StubBackendService primary = new StubBackendService((method, args) -> Results.error("Unavailable", 503));
+        StubBackendService secondary = new StubBackendService((method, args) -> Results.success("txid"));
+        hedged = hedged(primary, secondary, 1_000);
+
+        Result<String> result = hedged.getTransactionService().submitTransaction(TRANSACTION);
+
+        assertEquals(503, result.code());
+        assertEquals(0, secondary.calls("submitTransaction"), "the primary may have accepted it");
+    }
+
+    @Test
+    void submitStaysOnProviderAfterException() throws Exception {
+        StubBackendService primary = new StubBackendService((method, args) -> {
+            throw new IllegalStateException("read timed out");
+        });
+        StubBackendService secondary = new StubBackendService((method, args) -> Results.success("txid"));
+        hedged = hedged(primary, secondary, 1_000);
+
+        assertThrows(IllegalStateException.class, () -> hedged.getTransactionService().submitTransaction(TRANSACTION));
+        assertEquals(0, secondary.calls("submitTransaction"));
+    }
+
+    @Test
+    void submitFailsOverOnRateLimit() throws Exception {
+        StubBackendService primary = new StubBackendService((method, args) -> Results.error("Too many requests", 429));
+        StubBackendService secondary = new StubBackendService((method, args) -> Results.success("txid"));
+        hedged = hedged(primary, secondary, 1_000);
+
+        Result<String> result = hedged.getTransactionService().submitTransaction(TRANSACTION);
+
+        assertEquals("txid", result.getValue());
+        assertEquals(1, secondary.calls("submitTransaction"));
+    }
+
+    @Test
+    void submitIsNotHedged() throws Exception {
+        StubBackendService primary = new StubBackendService((method, args) -> {
+            Thread.sleep(200);
+            return Results.success("txid");
+        });
+        StubBackendService secondary = new StubBackendService((method, args) -> Results.success("txid"));
+        hedged = hedged(primary, secondary, 10);
+
+        assertTrue(hedged.getTransactionService().submitTransaction(TRANSACTION).isSuccessful());
+        assertEquals(0, secondary.calls("submitTransaction"));
+        assertEquals(0, meterRegistry.counter("backend.hedges").count());
+    }
+
+    @Test
+    void benchesFailingProvider() throws Exception {
+        StubBackendService primary = new StubBackendService((method, args) -> Results.error("Unavailable", 503));
+        StubBackendService secondary = new StubBackendService((method, args) -> Results.success(new Block()));
+        hedged = hedged(primary, secondary, 1_000);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(hedged.getBlockService().getLastestBlock().isSuccessful());
+        }
+        int benchedAfter = primary.calls("getLastestBlock");
+        for (int i = 0; i < 4; i++) {
+            assertTrue(hedged.getBlockService().getLastestBlock().isSuccessful());
+        }
+
+        assertEquals(benchedAfter, primary.calls("getLastestBlock"), "a benched provider is only tried after the others");
+        assertEquals(8, secondary.calls("getLastestBlock"));
+    }
+
+    private HedgedBackendService hedged(BackendService primary, BackendService secondary, long hedgeDelayMillis) {
+        Map<String, BackendService> backends = new LinkedHashMap<>();
+        backends.put("primary", primary);
+        backends.put("secondary", secondary);
+        return new HedgedBackendService(backends, 95, hedgeDelayMillis, hedgeDelayMillis, meterRegistry);
+    }
+}
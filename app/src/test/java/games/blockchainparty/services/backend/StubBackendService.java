@@ -0,0 +1,79 @@
+package games.blockchainparty.services.backend;
+
+import com.bloxbean.cardano.client.backend.api.*;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Backend whose services all answer through one handler, counting calls per method name.
+ */
+public final class StubBackendService implements BackendService {
+
+    public interface Handler {
+        Object handle(String method, Object[] args) throws Throwable;
+    }
+
+    private final Handler handler;
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    public StubBackendService(Handler handler) {
+        this.handler = handler;
+    }
+
+    public int calls(String method) {
+        AtomicInteger count = calls.get(method);
+        return count == null ? 0 : count.get();
+    }
+
+    @Override
+    public AssetService getAssetService() {
+        return stub(AssetService.class);
+    }
+
+    @Override
+    public BlockService getBlockService() {
+        return stub(BlockService.class);
+    }
+
+    @Override
+    public NetworkInfoService getNetworkInfoService() {
+        return stub(NetworkInfoService.class);
+    }
+
+    @Override
+    public TransactionService getTransactionService() {
+        return stub(TransactionService.class);
+    }
+
+    @Override
+    public UtxoService getUtxoService() {
+        return stub(UtxoService.class);
+    }
+
+    @Override
+    public AddressService getAddressService() {
+        return stub(AddressService.class);
+    }
+
+    @Override
+    public EpochService getEpochService() {
+        return stub(EpochService.class);
+    }
+
+    @Override
+    public MetadataService getMetadataService() {
+        return stub(MetadataService.class);
+    }
+
+    private <T> T stub(Class<T> serviceType) {
+        return serviceType.cast(Proxy.newProxyInstance(serviceType.getClassLoader(), new Class<?>[]{serviceType}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class)
+                return method.invoke(this, args);
+            calls.computeIfAbsent(method.getName(), name -> new AtomicInteger()).incrementAndGet();
+            return handler.handle(method.getName(), args);
+        }));
+    }
+}
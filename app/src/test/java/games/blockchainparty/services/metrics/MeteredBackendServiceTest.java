@@ -0,0 +1,81 @@
+package games.blockchainparty.services.metrics;
+
+import com.bloxbean.cardano.client.backend.model.Block;
+import games.blockchainparty.services.backend.Results;
+import games.blockchainparty.services.backend.StubBackendService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeteredBackendServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void timesCallsByOutcome() throws Exception {
+        int[] codes = {200, 404, 429, 503};
+        AtomicInteger next = new AtomicInteger();
+        StubBackendService backend = new StubBackendService((method, args) -> {
+            int code = codes[next.getAndIncrement()];
+            return code == 200 ? Results.success(new Block()) : Results.error("status " + code, code);
+        });
+        MeteredBackendService metered = new MeteredBackendService(backend, "stub", meterRegistry);
+
+        for (int i = 0; i < codes.length; i++) {
+            metered.getBlockService().getLastestBlock();
+        }
+
+        for (String outcome : new String[]{"success", "client_error", "rate_limited", "server_error"}) {
+            assertEquals(1, meterRegistry.get("backend.calls")
+                    .tags("provider", "stub", "service", "BlockService", "method", "getLastestBlock", "outcome", outcome)
+                    .timer().count(), outcome);
+        }
+    }
+
+    @Test
+    void timesExceptionsAndRethrowsThem() {
+        StubBackendService backend = new StubBackendService((method, args) -> {
+            throw new IllegalStateException("connection reset");
+        });
+        MeteredBackendService metered = new MeteredBackendService(backend, "stub", meterRegistry);
+
+        assertThrows(IllegalStateException.class, () -> metered.getUtxoService().getUtxos("addr_test1", 100, 1));
+        assertEquals(1, meterRegistry.get("backend.calls").tags("service", "UtxoService", "outcome", "exception").timer().count());
+    }
+
+    @Test
+    void countsCallsOnCallingThread() throws Exception {
+        StubBackendService backend = new StubBackendService((method, args) -> Results.success(new Block()));
+        MeteredBackendService metered = new MeteredBackendService(backend, "stub", meterRegistry);
+        int before = MeteredBackendService.callsOnCurrentThread();
+
+        metered.getBlockService().getLastestBlock();
+        metered.getBlockService().getLastestBlock();
+
+        assertEquals(2, MeteredBackendService.callsOnCurrentThread() - before);
+    }
+
+    @Test
+    void countsWorkHandedToAnotherThreadOnCallersCounter() throws Exception {
+        StubBackendService backend = new StubBackendService((method, args) -> Results.success(new Block()));
+        MeteredBackendService metered = new MeteredBackendService(backend, "stub", meterRegistry);
+        AtomicInteger counter = MeteredBackendService.callCounter();
+        int before = counter.get();
+
+        Thread worker = new Thread(() -> MeteredBackendService.countingOn(counter, () -> {
+            try {
+                metered.getBlockService().getLastestBlock();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        worker.start();
+        worker.join();
+
+        assertEquals(1, counter.get() - before);
+        assertEquals(before + 1, MeteredBackendService.callsOnCurrentThread());
+    }
+}
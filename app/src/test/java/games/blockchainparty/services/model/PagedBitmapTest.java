@@ -0,0 +1,132 @@
+package games.blockchainparty.services.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedBitmapTest {
+
+    private static final int PAGE_SIZE = 1 << PagedBitmap.PAGE_SHIFT;
+
+    @Test
+    void setsAndGetsAcrossPages() {
+        PagedBitmap bitmap = new PagedBitmap();
+        int[] indexes = {0, 63, 64, PAGE_SIZE - 1, PAGE_SIZE, 5 * PAGE_SIZE + 17, Integer.MAX_VALUE};
+
+        for (int index : indexes) {
+            assertTrue(bitmap.set(index));
+            assertFalse(bitmap.set(index), "second set of " + index);
+        }
+
+        for (int index : indexes) {
+            assertTrue(bitmap.get(index));
+        }
+        assertFalse(bitmap.get(1));
+        assertFalse(bitmap.get(PAGE_SIZE + 1));
+        assertFalse(bitmap.get(-1));
+        assertEquals(indexes.length, bitmap.cardinality());
+        assertThrows(IllegalArgumentException.class, () -> bitmap.set(-1));
+    }
+
+    @Test
+    void packsRangesLikeBitSet() {
+        PagedBitmap bitmap = new PagedBitmap();
+        BitSet expected = new BitSet();
+        Random random = new Random(5);
+        for (int i = 0; i < 5_000; i++) {
+            int index = random.nextInt(3 * PAGE_SIZE);
+            bitmap.set(index);
+            expected.set(index);
+        }
+
+        for (int[] range : new int[][]{{0, 1}, {0, 64}, {1, 63}, {60, 9}, {PAGE_SIZE - 3, 130}, {12_345, 3 * PAGE_SIZE - 12_345}, {3 * PAGE_SIZE, 100}}) {
+            byte[] bytes = bitmap.toBytes(range[0], range[1]);
+            assertEquals((range[1] + 7) / 8, bytes.length);
+            for (int i = 0; i < range[1]; i++) {
+                assertEquals(expected.get(range[0] + i), (bytes[i >>> 3] & (1 << (i & 7))) != 0, "bit " + (range[0] + i));
+            }
+        }
+    }
+
+    @Test
+    void rangeVersionChangesOnlyForChangedPages() {
+        PagedBitmap bitmap = new PagedBitmap();
+        long first = bitmap.version(0, PAGE_SIZE);
+        long second = bitmap.version(PAGE_SIZE, PAGE_SIZE + 10);
+
+        bitmap.set(PAGE_SIZE + 500);
+
+        assertEquals(first, bitmap.version(0, PAGE_SIZE));
+        assertNotEquals(second, bitmap.version(PAGE_SIZE, PAGE_SIZE + 10), "the version covers the whole page");
+        long spanning = bitmap.version(PAGE_SIZE - 1, PAGE_SIZE + 1);
+        bitmap.set(PAGE_SIZE - 1);
+        assertNotEquals(spanning, bitmap.version(PAGE_SIZE - 1, PAGE_SIZE + 1));
+
+        long unchanged = bitmap.version(0, 2 * PAGE_SIZE);
+        bitmap.set(PAGE_SIZE - 1);
+        assertEquals(unchanged, bitmap.version(0, 2 * PAGE_SIZE), "setting a set bit is not a change");
+    }
+
+    @Test
+    void loadPageMergesAndBumpsVersionOnlyOnChange() {
+        PagedBitmap source = new PagedBitmap();
+        source.set(PAGE_SIZE + 3);
+        source.set(PAGE_SIZE + 700);
+        PagedBitmap bitmap = new PagedBitmap();
+        bitmap.set(PAGE_SIZE + 9);
+        assertNull(source.pageWords(0));
+
+        long before = bitmap.version(PAGE_SIZE, PAGE_SIZE + 1);
+        bitmap.loadPage(1, source.pageWords(1));
+        long loaded = bitmap.version(PAGE_SIZE, PAGE_SIZE + 1);
+        bitmap.loadPage(1, source.pageWords(1));
+
+        assertNotEquals(before, loaded);
+        assertEquals(loaded, bitmap.version(PAGE_SIZE, PAGE_SIZE + 1));
+        assertTrue(bitmap.get(PAGE_SIZE + 3));
+        assertTrue(bitmap.get(PAGE_SIZE + 9));
+        assertEquals(3, bitmap.cardinality());
+    }
+
+    @Test
+    void concurrentSetsOfOneIndexSucceedOnce() throws Exception {
+        PagedBitmap bitmap = new PagedBitmap();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int won = 0;
+                    for (int index = 0; index < 2 * PAGE_SIZE; index += 7) {
+                        if (bitmap.set(index))
+                            won++;
+                    }
+                    return won;
+                }));
+            }
+            start.countDown();
+            int won = 0;
+            for (Future<Integer> result : results) {
+                won += result.get(30, TimeUnit.SECONDS);
+            }
+            int expected = (2 * PAGE_SIZE + 6) / 7;
+            assertEquals(expected, won);
+            assertEquals(expected, bitmap.cardinality());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
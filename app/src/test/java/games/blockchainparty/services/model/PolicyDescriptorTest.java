@@ -0,0 +1,45 @@
+package games.blockchainparty.services.model;
+
+import com.bloxbean.cardano.client.transaction.spec.script.RequireTimeBefore;
+import com.bloxbean.cardano.client.transaction.spec.script.ScriptAll;
+import com.bloxbean.cardano.client.transaction.spec.script.ScriptPubkey;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolicyDescriptorTest {
+
+    @Test
+    void matchesScriptPolicyId() throws Exception {
+        ScriptAll script = script();
+
+        PolicyDescriptor descriptor = PolicyDescriptor.of(script, 1);
+
+        assertEquals(script.getPolicyId(), descriptor.getPolicyId());
+        assertArrayEquals(script.serialize(), descriptor.getScriptBytes());
+        assertArrayEquals(script.getScriptHash(), descriptor.getScriptHash());
+    }
+
+    @Test
+    void isNotChangedThroughScripts() throws Exception {
+        ScriptAll script = script();
+        PolicyDescriptor descriptor = PolicyDescriptor.of(script, 1);
+        byte[] scriptBytes = descriptor.getScriptBytes();
+
+        script.addScript(new RequireTimeBefore(1));
+        ((ScriptAll) descriptor.getScript()).addScript(new RequireTimeBefore(2));
+        descriptor.getScriptBytes()[0] ^= 1;
+
+        assertNotSame(descriptor.getScript(), descriptor.getScript());
+        assertArrayEquals(scriptBytes, descriptor.getScript().serialize());
+        assertArrayEquals(scriptBytes, descriptor.getScriptBytes());
+        assertEquals(descriptor.getPolicyId(), descriptor.getScript().getPolicyId());
+    }
+
+    private static ScriptAll script() {
+        ScriptAll script = new ScriptAll();
+        script.addScript(new ScriptPubkey("ab".repeat(28)));
+        script.addScript(new RequireTimeBefore(90_000_000));
+        return script;
+    }
+}
@@ -0,0 +1,138 @@
+package games.blockchainparty.services.selection;
+
+import com.bloxbean.cardano.client.account.Account;
+import com.bloxbean.cardano.client.backend.api.UtxoService;
+import com.bloxbean.cardano.client.backend.common.OrderEnum;
+import com.bloxbean.cardano.client.backend.exception.InsufficientBalanceException;
+import com.bloxbean.cardano.client.backend.model.Amount;
+import com.bloxbean.cardano.client.backend.model.Result;
+import com.bloxbean.cardano.client.backend.model.Utxo;
+import com.bloxbean.cardano.client.common.MinAdaCalculator;
+import com.bloxbean.cardano.client.common.model.Networks;
+import com.bloxbean.cardano.client.transaction.spec.TransactionOutput;
+import com.bloxbean.cardano.client.transaction.spec.Value;
+import games.blockchainparty.services.backend.Results;
+import games.blockchainparty.services.backend.SimulatedChain;
+import games.blockchainparty.services.backend.UtxoDistribution;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.bloxbean.cardano.client.common.CardanoConstants.LOVELACE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoinSelectionStrategyImplTest {
+
+    private static final String ADDRESS = new Account(Networks.testnet()).baseAddress();
+    private static final MinAdaCalculator MIN_ADA_CALCULATOR = new MinAdaCalculator(SimulatedChain.protocolParams());
+    private static final int MAX_INPUTS = 50;
+
+    @ParameterizedTest
+    @EnumSource(CoinSelectionMode.class)
+    void coversAmountAndChangeMinAda(CoinSelectionMode mode) throws Exception {
+        List<Utxo> wallet = new UtxoDistribution(0.5, 0.4, 0.2, 2).generate(500, 1);
+        BigInteger amount = BigInteger.valueOf(25_000_000);
+
+        List<Utxo> selected = strategy(wallet, mode).selectUtxos(ADDRESS, LOVELACE, amount, Set.of());
+
+        assertTrue(selected.size() <= MAX_INPUTS);
+        long changeMinAda = MIN_ADA_CALCULATOR.calculateMinAda(TransactionOutput.builder()
+                .address(ADDRESS)
+                .value(new Value(BigInteger.ZERO, new ArrayList<>()))
+                .build()).longValue();
+        assertTrue(lovelace(selected) >= amount.longValue() + changeMinAda);
+    }
+
+    @ParameterizedTest
+    @EnumSource(CoinSelectionMode.class)
+    void selectsFromLargeWallet(CoinSelectionMode mode) throws Exception {
+        List<Utxo> wallet = new UtxoDistribution(0.7, 0.25, 0.1, 2).generate(20_000, 7);
+        BigInteger amount = BigInteger.valueOf(2_750_000);
+
+        List<Utxo> selected = strategy(wallet, mode).selectUtxos(ADDRESS, LOVELACE, amount, Set.of());
+
+        assertFalse(selected.isEmpty());
+        assertTrue(selected.size() <= MAX_INPUTS);
+        assertTrue(lovelace(selected) >= amount.longValue());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CoinSelectionMode.class)
+    void skipsExcludedUtxos(CoinSelectionMode mode) throws Exception {
+        List<Utxo> wallet = new UtxoDistribution(0.5, 0.5, 0, 0).generate(200, 3);
+        Set<Utxo> excluded = new HashSet<>(wallet.subList(0, 150));
+
+        List<Utxo> selected = strategy(wallet, mode).selectUtxos(ADDRESS, LOVELACE, BigInteger.valueOf(10_000_000), excluded);
+
+        assertTrue(selected.stream().noneMatch(excluded::contains));
+    }
+
+    @ParameterizedTest
+    @EnumSource(CoinSelectionMode.class)
+    void failsWhenBalanceIsShort(CoinSelectionMode mode) {
+        List<Utxo> wallet = List.of(utxo(0, 3_000_000), utxo(1, 2_000_000));
+
+        assertThrows(InsufficientBalanceException.class,
+                () -> strategy(wallet, mode).selectUtxos(ADDRESS, LOVELACE, BigInteger.valueOf(5_000_000), Set.of()));
+    }
+
+    @ParameterizedTest
+    @EnumSource(CoinSelectionMode.class)
+    void failsBeyondMaxInputs(CoinSelectionMode mode) {
+        List<Utxo> wallet = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            wallet.add(utxo(i, 1_000_000));
+        }
+
+        assertThrows(InsufficientBalanceException.class,
+                () -> strategy(wallet, mode).selectUtxos(ADDRESS, LOVELACE, BigInteger.valueOf(60_000_000), Set.of()));
+    }
+
+    @Test
+    void branchAndBoundFindsExactMatch() throws Exception {
+        List<Utxo> wallet = List.of(utxo(0, 500_000_000), utxo(1, 7_000_000), utxo(2, 5_000_000), utxo(3, 3_000_000), utxo(4, 2_000_000));
+        CoinSelectionStrategyImpl strategy = new CoinSelectionStrategyImpl(utxoService(wallet), () -> null, CoinSelectionMode.BRANCH_AND_BOUND, MAX_INPUTS, new SimpleMeterRegistry());
+
+        List<Utxo> selected = strategy.selectUtxos(ADDRESS, LOVELACE, BigInteger.valueOf(10_000_000), Set.of());
+
+        assertEquals(10_000_000, lovelace(selected));
+        assertEquals(2, selected.size());
+    }
+
+    private static CoinSelectionStrategyImpl strategy(List<Utxo> wallet, CoinSelectionMode mode) {
+        return new CoinSelectionStrategyImpl(utxoService(wallet), () -> MIN_ADA_CALCULATOR, mode, MAX_INPUTS, new SimpleMeterRegistry());
+    }
+
+    private static UtxoService utxoService(List<Utxo> wallet) {
+        return new UtxoService() {
+            @Override
+            public Result<List<Utxo>> getUtxos(String address, int count, int page) {
+                return getUtxos(address, count, page, OrderEnum.asc);
+            }
+
+            @Override
+            public Result<List<Utxo>> getUtxos(String address, int count, int page, OrderEnum order) {
+                int from = Math.min(wallet.size(), (page - 1) * count);
+                return Results.success(new ArrayList<>(wallet.subList(from, Math.min(wallet.size(), from + count))));
+            }
+        };
+    }
+
+    private static Utxo utxo(int index, long lovelace) {
+        return new Utxo(String.format("%064x", index), 0, List.of(new Amount(LOVELACE, BigInteger.valueOf(lovelace))), null);
+    }
+
+    private static long lovelace(List<Utxo> utxos) {
+        return utxos.stream().flatMap(utxo -> utxo.getAmount().stream())
+                .filter(amount -> LOVELACE.equals(amount.getUnit()))
+                .mapToLong(amount -> amount.getQuantity().longValue())
+                .sum();
+    }
+}
@@ -0,0 +1,82 @@
+package games.blockchainparty.benchmarks;
+
+import com.bloxbean.cardano.client.backend.api.helper.UtxoSelectionStrategy;
+import com.bloxbean.cardano.client.backend.api.helper.impl.DefaultUtxoSelectionStrategyImpl;
+import com.bloxbean.cardano.client.backend.api.helper.impl.OnlyAdaUtxoSelectionStrategyImpl;
+import com.bloxbean.cardano.client.backend.model.Utxo;
+import com.bloxbean.cardano.client.common.MinAdaCalculator;
+import games.blockchainparty.services.backend.SimulatedChain;
+import games.blockchainparty.services.selection.CoinSelectionMode;
+import games.blockchainparty.services.selection.CoinSelectionStrategyImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.bloxbean.cardano.client.common.CardanoConstants.LOVELACE;
+
+/**
+ * Selection time per strategy on synthetic wallets, including the library first-fit and only-ADA strategies.
+ * The selections and inputs counters are secondary results in the JSON baseline, their ratio is the average input count per selection.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoinSelectionBenchmark {
+
+    private static final String ADDRESS = "addr_test1benchmark";
+
+    @Param({"1000", "5000", "20000"})
+    private int walletSize;
+
+    @Param({"3", "150"})
+    private long amountAda;
+
+    @Param({"FIRST_FIT", "ONLY_ADA", "LARGEST_FIRST", "RANDOM_IMPROVE", "BRANCH_AND_BOUND"})
+    private String strategy;
+
+    private UtxoSelectionStrategy selectionStrategy;
+    private BigInteger amount;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SyntheticWallet wallet = new SyntheticWallet(walletSize, 3, 0.1, 42);
+        MinAdaCalculator minAdaCalculator = new MinAdaCalculator(SimulatedChain.protocolParams());
+        if ("FIRST_FIT".equals(strategy)) {
+            selectionStrategy = new DefaultUtxoSelectionStrategyImpl(wallet);
+        } else if ("ONLY_ADA".equals(strategy)) {
+            selectionStrategy = new OnlyAdaUtxoSelectionStrategyImpl(wallet);
+        } else {
+            selectionStrategy = new CoinSelectionStrategyImpl(wallet, () -> minAdaCalculator, CoinSelectionMode.valueOf(strategy), 50, new SimpleMeterRegistry());
+        }
+        amount = BigInteger.valueOf(amountAda * 1_000_000);
+    }
+
+    @Benchmark
+    public List<Utxo> select(SelectionCounters counters) throws Exception {
+        List<Utxo> selected = selectionStrategy.selectUtxos(ADDRESS, LOVELACE, amount, Collections.emptySet());
+        counters.selections++;
+        counters.inputs += selected.size();
+        return selected;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SelectionCounters {
+
+        public long selections;
+        public long inputs;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            selections = 0;
+            inputs = 0;
+        }
+    }
+}
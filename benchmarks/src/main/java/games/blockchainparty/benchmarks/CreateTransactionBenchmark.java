@@ -0,0 +1,48 @@
+package games.blockchainparty.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * {@link games.blockchainparty.services.MinterService#createTransaction} end to end: slot, selection over the UTXO index, metadata, fee and serialization.
+ * The backend is the simulator without latency, so this is the CPU cost of a build without network time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreateTransactionBenchmark {
+
+    @Param({"1000"})
+    private int walletSize;
+
+    @Param({"1", "10"})
+    private int batchSize;
+
+    private MinterFixture fixture;
+    private String userAddress;
+    private List<Integer> numbers;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        fixture = new MinterFixture(walletSize);
+        userAddress = fixture.userAddress();
+        numbers = IntStream.rangeClosed(1, batchSize).boxed().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public String createTransaction() throws Exception {
+        return fixture.getMinterService().createTransaction(userAddress, numbers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+}
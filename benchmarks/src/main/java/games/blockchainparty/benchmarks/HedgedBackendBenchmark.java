@@ -0,0 +1,74 @@
+package games.blockchainparty.benchmarks;
+
+import com.bloxbean.cardano.client.backend.api.BackendService;
+import com.bloxbean.cardano.client.backend.model.Result;
+import com.bloxbean.cardano.client.backend.model.Utxo;
+import games.blockchainparty.config.SimulatorProperties;
+import games.blockchainparty.services.backend.HedgedBackendService;
+import games.blockchainparty.services.backend.SimulatedBackendService;
+import games.blockchainparty.services.backend.SimulatedChain;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tail latency of a UTXO page read through {@link HedgedBackendService} over simulated providers with a heavy latency tail.
+ * providers=1 is the direct call for comparison. The primary scenario makes the first provider slow (10x the latency tail) or failing (30% 500s),
+ * which the composite should route around.
+ * Run in sample mode and compare the p0.99 rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(8)
+public class HedgedBackendBenchmark {
+
+    @Param({"1", "3"})
+    private int providers;
+
+    @Param({"healthy", "slow", "failing"})
+    private String primary;
+
+    private BackendService backendService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SimulatedChain chain = new SimulatedChain(providerProperties(20, 0));
+        Map<String, BackendService> backends = new LinkedHashMap<>();
+        for (int i = 0; i < providers; i++) {
+            SimulatorProperties properties = i > 0 ? providerProperties(20, 0)
+                    : providerProperties("slow".equals(primary) ? 200 : 20, "failing".equals(primary) ? 0.3 : 0);
+            backends.put("simulator-" + i, new SimulatedBackendService(properties, chain));
+        }
+        backendService = providers == 1 ? backends.values().iterator().next() : new HedgedBackendService(backends, 95, 5, 100, new SimpleMeterRegistry());
+    }
+
+    private static SimulatorProperties providerProperties(long latencyJitterMillis, double errorRate) {
+        SimulatorProperties properties = new SimulatorProperties();
+        properties.setUtxosPerAddress(100);
+        properties.setRateLimitRps(0);
+        properties.setLatencyMs(10);
+        properties.setLatencyJitterMs(latencyJitterMillis);
+        properties.setErrorRate(errorRate);
+        return properties;
+    }
+
+    @Benchmark
+    public Result<List<Utxo>> getUtxos() throws Exception {
+        return backendService.getUtxoService().getUtxos("addr_test1_benchmark", 100, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (backendService instanceof HedgedBackendService) {
+            ((HedgedBackendService) backendService).close();
+        }
+    }
+}
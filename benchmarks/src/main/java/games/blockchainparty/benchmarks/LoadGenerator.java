@@ -0,0 +1,147 @@
+package games.blockchainparty.benchmarks;
+
+import com.bloxbean.cardano.client.account.Account;
+import com.bloxbean.cardano.client.common.model.Networks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Open-loop load against a running server: starts mints at a fixed rate, each a GET /mintingtx followed by a POST /submit of the returned transaction.
+ * Latency is measured from the scheduled start, so a stalled server shows up in the percentiles instead of lowering the offered rate.
+ * Meant for a server started with cardano.backend=simulator, which does not check the user witness.
+ *
+ * <pre>java -cp benchmarks/target/benchmarks.jar games.blockchainparty.benchmarks.LoadGenerator --url=http://localhost:8080 --rps=50 --duration=60</pre>
+ */
+public final class LoadGenerator {
+
+    private final String url;
+    private final double rps;
+    private final int durationSeconds;
+    private final boolean submit;
+    private final List<String> users = new ArrayList<>();
+    private final AtomicInteger nextNumber;
+    private final HttpClient httpClient;
+    private final Stats build = new Stats("mintingtx");
+    private final Stats submitStats = new Stats("submit");
+
+    private LoadGenerator(Map<String, String> options) {
+        this.url = options.getOrDefault("url", "http://localhost:8080");
+        this.rps = Double.parseDouble(options.getOrDefault("rps", "50"));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        this.submit = Boolean.parseBoolean(options.getOrDefault("submit", "true"));
+        this.nextNumber = new AtomicInteger(Integer.parseInt(options.getOrDefault("first-number", "1")));
+        int userCount = Integer.parseInt(options.getOrDefault("users", "20"));
+        for (int i = 0; i < userCount; i++) {
+            users.add(new Account(Networks.testnet()).baseAddress());
+        }
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newCachedThreadPool())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadGenerator(options).run();
+        System.exit(0);
+    }
+
+    private void run() throws InterruptedException {
+        long intervalNanos = (long) (1e9 / rps);
+        long total = (long) (rps * durationSeconds);
+        System.out.printf("Offering %.1f mints/s for %ds against %s (%d users, submit=%s)%n", rps, durationSeconds, url, users.size(), submit);
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        CountDownLatch done = new CountDownLatch((int) total);
+        long startNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        for (long i = 0; i < total; i++) {
+            long scheduledAt = startNanos + i * intervalNanos;
+            String user = users.get((int) (i % users.size()));
+            scheduler.schedule(() -> mint(user, nextNumber.getAndIncrement(), scheduledAt).whenComplete((result, e) -> done.countDown()),
+                    scheduledAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+        if (!done.await(durationSeconds + 120L, TimeUnit.SECONDS)) {
+            System.out.println("Timed out waiting for " + done.getCount() + " outstanding mints");
+        }
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        scheduler.shutdownNow();
+
+        build.report(elapsedSeconds);
+        if (submit) {
+            submitStats.report(elapsedSeconds);
+        }
+    }
+
+    private CompletableFuture<Void> mint(String user, int number, long scheduledAt) {
+        HttpRequest buildRequest = HttpRequest.newBuilder(URI.create(url + "/mintingtx/" + user + "/" + number))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+        return httpClient.sendAsync(buildRequest, HttpResponse.BodyHandlers.ofString())
+                .handle((response, e) -> {
+                    build.record(scheduledAt, response != null ? response.statusCode() : -1);
+                    return response != null && response.statusCode() == 200 ? response.body() : null;
+                })
+                .thenCompose(transaction -> {
+                    if (transaction == null || !submit)
+                        return CompletableFuture.completedFuture(null);
+                    long submitAt = System.nanoTime();
+                    HttpRequest submitRequest = HttpRequest.newBuilder(URI.create(url + "/submit"))
+                            .timeout(Duration.ofSeconds(60))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"number\":" + number + ",\"tx\":\"" + transaction + "\"}"))
+                            .build();
+                    return httpClient.sendAsync(submitRequest, HttpResponse.BodyHandlers.discarding())
+                            .handle((response, e) -> {
+                                submitStats.record(submitAt, response != null ? response.statusCode() : -1);
+                                return null;
+                            });
+                });
+    }
+
+    private static final class Stats {
+
+        private final String name;
+        private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        private final Map<Integer, AtomicInteger> statuses = new ConcurrentSkipListMap<>();
+
+        private Stats(String name) {
+            this.name = name;
+        }
+
+        private void record(long startNanos, int status) {
+            latencies.add(System.nanoTime() - startNanos);
+            statuses.computeIfAbsent(status, key -> new AtomicInteger()).incrementAndGet();
+        }
+
+        private void report(double elapsedSeconds) {
+            long[] sorted;
+            synchronized (latencies) {
+                sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            }
+            int ok = statuses.entrySet().stream().filter(entry -> entry.getKey() >= 200 && entry.getKey() < 300).mapToInt(entry -> entry.getValue().get()).sum();
+            System.out.printf("%n%s: %d requests, %.1f ok/s, statuses %s (-1 = connection error)%n", name, sorted.length, ok / elapsedSeconds, statuses);
+            if (sorted.length == 0)
+                return;
+            System.out.printf("  p50 %.1fms  p90 %.1fms  p99 %.1fms  p99.9 %.1fms  max %.1fms%n",
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), percentile(sorted, 99.9), sorted[sorted.length - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package games.blockchainparty.benchmarks;
+
+import com.bloxbean.cardano.client.backend.api.BackendService;
+import games.blockchainparty.config.ConfigProperties;
+import games.blockchainparty.config.Network;
+import games.blockchainparty.config.SimulatorProperties;
+import games.blockchainparty.services.*;
+import games.blockchainparty.services.backend.SimulatedBackendService;
+import games.blockchainparty.services.selection.CoinSelectionMode;
+import games.blockchainparty.services.selection.CoinSelectionStrategyImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The minting services wired by hand against a {@link SimulatedBackendService} without latency, errors or rate limit, with account, policy and catalog in a temporary data directory.
+ */
+public class MinterFixture implements AutoCloseable {
+
+    private final Path dataDirectory;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final ConfigService configService;
+    private final SignerRegistry signerRegistry;
+    private final BuiltTransactionCache builtTransactionCache;
+    private final MinterService minterService;
+
+    public MinterFixture(int walletSize) throws Exception {
+        dataDirectory = Files.createTempDirectory("minter-benchmark");
+        FilesService filesService = new FilesService(dataDirectory);
+        ConfigProperties configProperties = new ConfigProperties();
+        configProperties.setNetwork(Network.TEST_NET);
+        configProperties.setAssetNamePrefix("BlockchainParty");
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SimulatorProperties simulatorProperties = new SimulatorProperties();
+        simulatorProperties.setUtxosPerAddress(walletSize);
+        simulatorProperties.setLatencyMs(0);
+        simulatorProperties.setLatencyJitterMs(0);
+        simulatorProperties.setRateLimitRps(0);
+        BackendService backendService = new SimulatedBackendService(simulatorProperties);
+
+        configService = new ConfigService(configProperties, filesService);
+        ChainSnapshotStore chainSnapshotStore = new ChainSnapshotStore(filesService);
+        ProtocolParamsProvider protocolParamsProvider = new ProtocolParamsProvider(backendService, chainSnapshotStore);
+        protocolParamsProvider.refresh();
+        SlotClock slotClock = new SlotClock(backendService, chainSnapshotStore, meterRegistry);
+        slotClock.refresh();
+        UtxoIndex utxoIndex = new UtxoIndex(backendService);
+        CoinSelectionStrategyImpl selectionStrategy = new CoinSelectionStrategyImpl(utxoIndex, protocolParamsProvider::getMinAdaCalculator, CoinSelectionMode.LARGEST_FIRST, 50, meterRegistry);
+        signerRegistry = new SignerRegistry(configService);
+        FeeCalculator feeCalculator = new FeeCalculator(protocolParamsProvider);
+        MetadataCatalog metadataCatalog = new MetadataCatalog(configService, filesService);
+        builtTransactionCache = new BuiltTransactionCache(signerRegistry, slotClock);
+        UtxoLeaseManager utxoLeaseManager = new UtxoLeaseManager(slotClock, meterRegistry);
+        minterService = new MinterService(configService, backendService, protocolParamsProvider, slotClock, selectionStrategy, signerRegistry, feeCalculator,
+                metadataCatalog, builtTransactionCache, utxoLeaseManager, executor, meterRegistry);
+    }
+
+    /**
+     * Testnet base address of the generated account, used as the minting user.
+     */
+    public String userAddress() {
+        return configService.getAccount().baseAddress();
+    }
+
+    public ConfigService getConfigService() {
+        return configService;
+    }
+
+    public SignerRegistry getSignerRegistry() {
+        return signerRegistry;
+    }
+
+    public BuiltTransactionCache getBuiltTransactionCache() {
+        return builtTransactionCache;
+    }
+
+    public MinterService getMinterService() {
+        return minterService;
+    }
+
+    @Override
+    public void close() throws IOException {
+        executor.shutdown();
+        FileSystemUtils.deleteRecursively(dataDirectory);
+    }
+}
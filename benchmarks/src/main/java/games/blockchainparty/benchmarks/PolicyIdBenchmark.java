@@ -0,0 +1,51 @@
+package games.blockchainparty.benchmarks;
+
+import com.bloxbean.cardano.client.transaction.spec.script.ScriptAll;
+import com.bloxbean.cardano.client.transaction.spec.script.ScriptPubkey;
+import games.blockchainparty.services.model.PolicyDescriptor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link com.bloxbean.cardano.client.transaction.spec.script.NativeScript#getPolicyId} (serialize + blake2b-224 on every call)
+ * against building a {@link PolicyDescriptor} once and reading its cached policy id.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolicyIdBenchmark {
+
+    @Param({"1", "3"})
+    private int keys;
+
+    private ScriptAll script;
+    private PolicyDescriptor descriptor;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        script = new ScriptAll();
+        for (int i = 0; i < keys; i++) {
+            script.addScript(ScriptPubkey.createWithNewKey()._1);
+        }
+        descriptor = PolicyDescriptor.of(script, keys);
+    }
+
+    @Benchmark
+    public String nativeScriptPolicyId() throws Exception {
+        return script.getPolicyId();
+    }
+
+    @Benchmark
+    public PolicyDescriptor buildDescriptor() throws Exception {
+        return PolicyDescriptor.of(script, keys);
+    }
+
+    @Benchmark
+    public String cachedPolicyId() {
+        return descriptor.getPolicyId();
+    }
+}
@@ -0,0 +1,42 @@
+package games.blockchainparty.benchmarks;
+
+import com.bloxbean.cardano.client.backend.api.UtxoService;
+import com.bloxbean.cardano.client.backend.common.OrderEnum;
+import com.bloxbean.cardano.client.backend.model.Result;
+import com.bloxbean.cardano.client.backend.model.Utxo;
+import games.blockchainparty.services.backend.Results;
+import games.blockchainparty.services.backend.UtxoDistribution;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed deterministic wallet of mostly dust UTXOs, some mid-sized and a few large ones, a tokenRatio share of them carrying native tokens.
+ */
+public class SyntheticWallet implements UtxoService {
+
+    private final List<Utxo> utxos;
+
+    public SyntheticWallet(int size, int tokensPerUtxo, double tokenRatio, long seed) {
+        utxos = new UtxoDistribution(0.70, 0.25, tokenRatio, tokensPerUtxo).generate(size, seed);
+    }
+
+    public List<Utxo> getUtxos() {
+        return utxos;
+    }
+
+    @Override
+    public Result<List<Utxo>> getUtxos(String address, int count, int page) {
+        return getUtxos(address, count, page, OrderEnum.asc);
+    }
+
+    @Override
+    public Result<List<Utxo>> getUtxos(String address, int count, int page, OrderEnum order) {
+        int from = Math.max(page - 1, 0) * count;
+        List<Utxo> pageData = new ArrayList<>();
+        for (int i = from; i < from + count && i < utxos.size(); i++) {
+            pageData.add(order == OrderEnum.desc ? utxos.get(utxos.size() - 1 - i) : utxos.get(i));
+        }
+        return Results.success(pageData);
+    }
+}
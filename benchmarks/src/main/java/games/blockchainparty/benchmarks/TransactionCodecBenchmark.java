@@ -0,0 +1,66 @@
+package games.blockchainparty.benchmarks;
+
+import com.bloxbean.cardano.client.transaction.spec.Transaction;
+import com.bloxbean.cardano.client.util.HexUtil;
+import games.blockchainparty.controllers.model.SubmitRequest;
+import games.blockchainparty.services.model.SignedTransaction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization, deserialization and server signing of a built minting transaction.
+ * signFull is the deserialize / sign / serialize path, signCached completes the raw bytes of a transaction the server built.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionCodecBenchmark {
+
+    private MinterFixture fixture;
+    private byte[] transactionBytes;
+    private Transaction transaction;
+    private SubmitRequest submitRequest;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        fixture = new MinterFixture(1000);
+        String transactionHex = fixture.getMinterService().createTransaction(fixture.userAddress(), Collections.singletonList(1));
+        transactionBytes = HexUtil.decodeHexString(transactionHex);
+        transaction = Transaction.deserialize(transactionBytes);
+        submitRequest = new SubmitRequest();
+        submitRequest.setNumber(1);
+        submitRequest.setTxHash(transactionHex);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return transaction.serialize();
+    }
+
+    @Benchmark
+    public Transaction deserialize() throws Exception {
+        return Transaction.deserialize(transactionBytes);
+    }
+
+    @Benchmark
+    public byte[] signFull() throws Exception {
+        Transaction signed = fixture.getSignerRegistry().signAsServer(Transaction.deserialize(transactionBytes));
+        signed.setValid(true);
+        return signed.serialize();
+    }
+
+    @Benchmark
+    public SignedTransaction signCached() throws Exception {
+        return fixture.getMinterService().signTransaction(submitRequest);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+}
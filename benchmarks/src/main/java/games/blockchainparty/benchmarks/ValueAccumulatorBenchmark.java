@@ -0,0 +1,106 @@
+package games.blockchainparty.benchmarks;
+
+import com.bloxbean.cardano.client.backend.model.Utxo;
+import com.bloxbean.cardano.client.transaction.spec.Asset;
+import com.bloxbean.cardano.client.transaction.spec.MultiAsset;
+import com.bloxbean.cardano.client.transaction.spec.TransactionOutput;
+import com.bloxbean.cardano.client.transaction.spec.Value;
+import com.bloxbean.cardano.client.util.AssetUtil;
+import com.bloxbean.cardano.client.util.Tuple;
+import games.blockchainparty.services.model.ValueAccumulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static com.bloxbean.cardano.client.common.CardanoConstants.LOVELACE;
+
+/**
+ * Merging token-heavy UTXOs into a change value: {@link ValueAccumulator} against the linear-scan copyUtxoValuesToChangeOutput it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueAccumulatorBenchmark {
+
+    @Param({"10", "50"})
+    private int inputs;
+
+    @Param({"5", "30"})
+    private int tokensPerUtxo;
+
+    private List<Utxo> utxos;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        utxos = new SyntheticWallet(inputs, tokensPerUtxo, 1.0, 42).getUtxos();
+    }
+
+    @Benchmark
+    public Value accumulator() {
+        ValueAccumulator accumulator = new ValueAccumulator();
+        for (Utxo utxo : utxos) {
+            accumulator.add(utxo);
+        }
+        return accumulator.toValue();
+    }
+
+    @Benchmark
+    public Value copyUtxoValuesToChangeOutput() {
+        TransactionOutput change = TransactionOutput.builder()
+                .value(Value.builder().coin(BigInteger.ZERO).multiAssets(new ArrayList<>()).build())
+                .build();
+        for (Utxo utxo : utxos) {
+            copyUtxoValuesToChangeOutput(change, utxo);
+        }
+        return change.getValue();
+    }
+
+    /**
+     * Baseline, as MinterService did it before the accumulator.
+     */
+    private static void copyUtxoValuesToChangeOutput(TransactionOutput changeOutput, Utxo utxo) {
+        utxo.getAmount().forEach(utxoAmt -> {
+            String utxoUnit = utxoAmt.getUnit();
+            BigInteger utxoQty = utxoAmt.getQuantity();
+            if (utxoUnit.equals(LOVELACE)) {
+                BigInteger existingCoin = changeOutput.getValue().getCoin();
+                if (existingCoin == null) existingCoin = BigInteger.ZERO;
+                changeOutput.getValue().setCoin(existingCoin.add(utxoQty));
+            } else {
+                Tuple<String, String> policyIdAssetName = AssetUtil.getPolicyIdAndAssetName(utxoUnit);
+                Optional<MultiAsset> multiAssetOptional =
+                        changeOutput.getValue().getMultiAssets().stream().filter(ma -> policyIdAssetName._1.equals(ma.getPolicyId())).findFirst();
+                if (multiAssetOptional.isPresent()) {
+                    Optional<Asset> assetOptional = multiAssetOptional.get().getAssets().stream()
+                            .filter(ast -> policyIdAssetName._2.equals(ast.getName()))
+                            .findFirst();
+                    if (assetOptional.isPresent()) {
+                        assetOptional.get().setValue(assetOptional.get().getValue().add(utxoQty));
+                    } else {
+                        multiAssetOptional.get().getAssets().add(new Asset(policyIdAssetName._2, utxoQty));
+                    }
+                } else {
+                    Asset asset = new Asset(policyIdAssetName._2, utxoQty);
+                    changeOutput.getValue().getMultiAssets().add(new MultiAsset(policyIdAssetName._1, new ArrayList<>(List.of(asset))));
+                }
+            }
+        });
+
+        List<MultiAsset> multiAssets = changeOutput.getValue().getMultiAssets();
+        List<MultiAsset> markedForRemoval = new ArrayList<>();
+        if (multiAssets != null && multiAssets.size() > 0) {
+            multiAssets.forEach(ma -> {
+                if (ma.getAssets() == null || ma.getAssets().size() == 0)
+                    markedForRemoval.add(ma);
+            });
+            if (!markedForRemoval.isEmpty()) multiAssets.removeAll(markedForRemoval);
+        }
+    }
+}